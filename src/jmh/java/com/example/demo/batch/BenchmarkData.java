@@ -0,0 +1,47 @@
+package com.example.demo.batch;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+    Deterministic input shared by the benchmarks, mixed case names so the processor has work to do
+ */
+final class BenchmarkData {
+    private static final String[] FIRST_NAMES = {"Jill", "Joe", "Justin", "Jane", "John", "Alexandra", "Maximilian", "Bo"};
+    private static final String[] LAST_NAMES = {"Doe", "Smith", "Johnson", "Williams", "Brown", "Nakamura", "Kim"};
+
+    private BenchmarkData() {
+    }
+
+    static Person person(int i) {
+        return new Person(FIRST_NAMES[i % FIRST_NAMES.length], LAST_NAMES[i % LAST_NAMES.length] + (i % 100));
+    }
+
+    static List<Person> people(int rows) {
+        List<Person> people = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            people.add(person(i));
+        }
+        return people;
+    }
+
+    static File csv(int rows) throws IOException {
+        File file = File.createTempFile("people-" + rows + "-", ".csv");
+        file.deleteOnExit();
+        try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            for (int i = 0; i < rows; i++) {
+                Person person = person(i);
+                writer.write(person.getFirstName());
+                writer.write(',');
+                writer.write(person.getLastName());
+                writer.write('\n');
+            }
+        }
+        return file;
+    }
+}
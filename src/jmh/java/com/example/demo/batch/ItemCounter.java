@@ -0,0 +1,22 @@
+package com.example.demo.batch;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/*
+    Reports processed items as an extra throughput metric, so benchmarks that handle a whole file or chunk
+    per invocation still show items/sec next to ops/sec
+ */
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+@State(Scope.Thread)
+public class ItemCounter {
+    public long items;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        items = 0;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.demo.batch;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.batch.item.database.BeanPropertyItemSqlParameterSourceProvider;
+import org.springframework.batch.item.database.ItemSqlParameterSourceProvider;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+    Resolves firstName and lastName of one Person per operation, isolating the per item parameter cost of the write phase
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ParameterSourceBenchmark {
+    private final Person person = BenchmarkData.person(3);
+
+    private final ItemSqlParameterSourceProvider<Person> beanProvider = new BeanPropertyItemSqlParameterSourceProvider<>();
+
+    private final ItemSqlParameterSourceProvider<Person> compiledProvider = new CompiledItemSqlParameterSourceProvider<>();
+
+    @Benchmark
+    public void beanProperty(Blackhole blackhole) {
+        resolve(beanProvider.createSqlParameterSource(person), blackhole);
+    }
+
+    @Benchmark
+    public void compiled(Blackhole blackhole) {
+        resolve(compiledProvider.createSqlParameterSource(person), blackhole);
+    }
+
+    private static void resolve(SqlParameterSource source, Blackhole blackhole) {
+        blackhole.consume(source.getValue("firstName"));
+        blackhole.consume(source.getValue("lastName"));
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.demo.batch;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+    One PersonItemProcessor.process call per operation, so ops/sec is items/sec
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ProcessorBenchmark {
+    private static final int SIZE = 1024;
+
+    private final PersonItemProcessor processor = new PersonItemProcessor();
+
+    private List<Person> people;
+
+    private List<Person> input;
+
+    private int index;
+
+    @Setup
+    public void setUp() {
+        people = BenchmarkData.people(SIZE);
+        input = BenchmarkData.people(SIZE);
+    }
+
+    @Benchmark
+    public Person process() throws Exception {
+        index = (index + 1) & (SIZE - 1);
+        // the processor upper-cases in place, so every operation starts from the mixed case names again
+        final Person person = people.get(index);
+        person.setFirstName(input.get(index).getFirstName());
+        person.setLastName(input.get(index).getLastName());
+        return processor.process(person);
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.demo.batch;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.file.builder.FlatFileItemReaderBuilder;
+import org.springframework.batch.item.file.mapping.BeanWrapperFieldSetMapper;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Reads a whole generated CSV per invocation with the FlatFileItemReader configured like BatchJobConfiguration
+    and with MappedPersonItemReader
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReaderBenchmark {
+    @Param({"10000", "1000000"})
+    public int rows;
+
+    @Param({"flat", "mapped"})
+    public String reader;
+
+    private File file;
+
+    @Setup
+    public void setUp() throws Exception {
+        file = BenchmarkData.csv(rows);
+    }
+
+    @TearDown
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Benchmark
+    public void readAll(ItemCounter counter, Blackhole blackhole) throws Exception {
+        ItemStreamReader<Person> itemReader = createReader();
+        itemReader.open(new ExecutionContext());
+        Person person;
+        while ((person = itemReader.read()) != null) {
+            blackhole.consume(person);
+            counter.items++;
+        }
+        itemReader.close();
+    }
+
+    private ItemStreamReader<Person> createReader() {
+        if ("mapped".equals(reader)) {
+            MappedPersonItemReader mappedReader = new MappedPersonItemReader();
+            mappedReader.setResource(new FileSystemResource(file));
+            return mappedReader;
+        }
+        return new FlatFileItemReaderBuilder<Person>()
+                .name("personItemReader")
+                .resource(new FileSystemResource(file))
+                .delimited()
+                .names(new String[]{"firstName", "lastName"})
+                .fieldSetMapper(new BeanWrapperFieldSetMapper<Person>() {{
+                    setTargetType(Person.class);
+                }})
+                .build();
+    }
+}
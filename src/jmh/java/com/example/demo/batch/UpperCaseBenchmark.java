@@ -0,0 +1,75 @@
+package com.example.demo.batch;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Upper-cases a first and a last name per operation, the way PersonItemProcessor did before and does now
+    Run with -prof gc to compare gc.alloc.rate.norm, the bytes allocated per operation
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class UpperCaseBenchmark {
+    private static final int SIZE = 1024;
+
+    @Param({"mixed", "upper", "unicode"})
+    private String names;
+
+    private String[] firstNames;
+
+    private String[] lastNames;
+
+    private int index;
+
+    @Setup
+    public void setUp() {
+        firstNames = new String[SIZE];
+        lastNames = new String[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            final Person person = BenchmarkData.person(i);
+            firstNames[i] = sample(person.getFirstName());
+            lastNames[i] = sample(person.getLastName());
+        }
+    }
+
+    private String sample(String name) {
+        switch (names) {
+            case "upper":
+                return name.toUpperCase(Locale.ROOT);
+            case "unicode":
+                return name + "é";
+            default:
+                return name;
+        }
+    }
+
+    @Benchmark
+    public void defaultLocale(Blackhole blackhole) {
+        index = (index + 1) & (SIZE - 1);
+        blackhole.consume(new Person(firstNames[index].toUpperCase(), lastNames[index].toUpperCase()));
+    }
+
+    @Benchmark
+    public void fastPath(Blackhole blackhole) {
+        index = (index + 1) & (SIZE - 1);
+        blackhole.consume(PersonItemProcessor.toUpperCase(firstNames[index]));
+        blackhole.consume(PersonItemProcessor.toUpperCase(lastNames[index]));
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.demo.batch;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.item.database.BeanPropertyItemSqlParameterSourceProvider;
+import org.springframework.batch.item.database.JdbcBatchItemWriter;
+import org.springframework.batch.item.database.builder.JdbcBatchItemWriterBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Writes rows into an in-memory H2 people table in chunks, one transaction per chunk like a chunk oriented step
+    jdbc is the JdbcBatchItemWriter of BatchJobConfiguration, jdbc-bean the same writer with BeanPropertyItemSqlParameterSourceProvider,
+    the others are the PersonBulkItemWriter strategies
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WriterBenchmark {
+    @Param({"10000", "100000"})
+    public int rows;
+
+    @Param({"10", "100", "1000"})
+    public int chunkSize;
+
+    @Param({"jdbc-bean", "jdbc", "multi-row", "csvread"})
+    public String writerType;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate transactionTemplate;
+
+    private ItemWriter<Person> writer;
+
+    private List<Person> people;
+
+    @Setup
+    public void setUp() throws Exception {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:writer-benchmark;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP TABLE people IF EXISTS");
+        jdbcTemplate.execute("CREATE TABLE people (person_id BIGINT IDENTITY NOT NULL PRIMARY KEY, first_name VARCHAR(20), last_name VARCHAR(20))");
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        writer = createWriter(dataSource);
+        people = BenchmarkData.people(rows);
+    }
+
+    private ItemWriter<Person> createWriter(DataSource dataSource) throws Exception {
+        if ("jdbc-bean".equals(writerType)) {
+            JdbcBatchItemWriter<Person> beanWriter = new JdbcBatchItemWriterBuilder<Person>()
+                    .itemSqlParameterSourceProvider(new BeanPropertyItemSqlParameterSourceProvider<>())
+                    .sql("INSERT INTO people (first_name, last_name) VALUES (:firstName, :lastName)")
+                    .dataSource(dataSource)
+                    .build();
+            beanWriter.afterPropertiesSet();
+            return beanWriter;
+        }
+        if (!"jdbc".equals(writerType)) {
+            PersonBulkItemWriter bulkWriter = new PersonBulkItemWriter(dataSource, PersonBulkItemWriter.Strategy.of(writerType));
+            bulkWriter.afterPropertiesSet();
+            return bulkWriter;
+        }
+        JdbcBatchItemWriter<Person> jdbcWriter = new JdbcBatchItemWriterBuilder<Person>()
+                .itemPreparedStatementSetter(new CompiledItemPreparedStatementSetter<>(Person.class, "firstName", "lastName"))
+                .sql("INSERT INTO people (first_name, last_name) VALUES (?, ?)")
+                .dataSource(dataSource)
+                .build();
+        jdbcWriter.afterPropertiesSet();
+        return jdbcWriter;
+    }
+
+    @Setup(Level.Iteration)
+    public void truncate() {
+        jdbcTemplate.execute("TRUNCATE TABLE people");
+    }
+
+    @Benchmark
+    public void writeAll(ItemCounter counter) {
+        for (int from = 0; from < rows; from += chunkSize) {
+            List<Person> chunk = people.subList(from, Math.min(from + chunkSize, rows));
+            transactionTemplate.execute(status -> {
+                try {
+                    writer.write(chunk);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+                return null;
+            });
+            counter.items += chunk.size();
+        }
+    }
+}
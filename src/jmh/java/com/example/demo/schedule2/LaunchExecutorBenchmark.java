@@ -0,0 +1,91 @@
+package com.example.demo.schedule2;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Time to run a burst of I/O bound launches on the batch launch executor, platform thread pool vs virtual threads
+    Every launch burns a little CPU and then blocks for blockMillis, standing in for a JDBC round trip or a file read
+
+    platform-N  ThreadPoolTaskExecutor with N threads, the batch.launcher.threads configuration
+    virtual     SimpleAsyncTaskExecutor on virtual threads, the batch.scheduler.virtual-threads configuration, Java 21 only
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LaunchExecutorBenchmark {
+    @Param({"platform-4", "platform-64", "virtual"})
+    private String executor;
+
+    @Param({"1000"})
+    private int launches;
+
+    @Param({"5"})
+    private int blockMillis;
+
+    @Param({"1000"})
+    private int cpuTokens;
+
+    private TaskExecutor taskExecutor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if (executor.equals("virtual")) {
+            taskExecutor = new SimpleAsyncTaskExecutor(VirtualThreads.threadFactory("batch-"));
+            return;
+        }
+        final int threads = Integer.parseInt(executor.substring(executor.indexOf('-') + 1));
+        final ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
+        pool.setCorePoolSize(threads);
+        pool.setMaxPoolSize(threads);
+        pool.setThreadNamePrefix("batch-");
+        pool.initialize();
+        taskExecutor = pool;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (taskExecutor instanceof ThreadPoolTaskExecutor) {
+            ((ThreadPoolTaskExecutor) taskExecutor).shutdown();
+        }
+    }
+
+    @Benchmark
+    public void burst() throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(launches);
+        for (int i = 0; i < launches; i++) {
+            taskExecutor.execute(() -> {
+                try {
+                    Blackhole.consumeCPU(cpuTokens);
+                    Thread.sleep(blockMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+    }
+}
@@ -0,0 +1,226 @@
+package com.example.demo.batch;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.repeat.RepeatContext;
+import org.springframework.batch.repeat.context.RepeatContextSupport;
+import org.springframework.batch.repeat.policy.CompletionPolicySupport;
+import org.springframework.util.Assert;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+    AdaptiveChunkCompletionPolicy sizes every chunk from the measured duration of the previous ones
+    Each chunk is timed from beforeChunk to afterChunk, i.e. read, process, write and commit. The smoothed time per item
+    gives the chunk size that lands in the middle of [targetMinMillis, targetMaxMillis], growing at most 2x and shrinking
+    at most 2x per chunk, bounded by [minSize, maxSize]. While chunks already land inside the window the size is kept
+
+    The policy must be registered as the step's completion policy, chunk listener and step execution listener
+    One instance may serve concurrent partitions, every step execution learns and sizes its chunks on its own,
+    a restarted step execution starts from the size its previous run stopped at
+
+    The chosen size is kept in the step ExecutionContext under CHUNK_SIZE_KEY and published as the gauge
+    batch.chunk.size, tagged with job and step like the meters of BatchMetricsListener, which is the size
+    chosen last by any execution of that step, e.g. by any partition
+ */
+public class AdaptiveChunkCompletionPolicy extends CompletionPolicySupport implements ChunkListener, StepExecutionListener {
+    private static final Logger log = LoggerFactory.getLogger(AdaptiveChunkCompletionPolicy.class);
+
+    public static final String CHUNK_SIZE_KEY = "adaptiveChunk.size";
+    public static final String ITEMS_PER_SECOND_KEY = "adaptiveChunk.itemsPerSecond";
+
+    private static final String START_NANOS_ATTRIBUTE = AdaptiveChunkCompletionPolicy.class.getName() + ".startNanos";
+    private static final String START_COUNT_ATTRIBUTE = AdaptiveChunkCompletionPolicy.class.getName() + ".startCount";
+
+    // weight of the newest measurement in the smoothed time per item
+    private static final double SMOOTHING = 0.3d;
+
+    private final MeterRegistry registry;
+
+    private final int initialSize;
+
+    private final int minSize;
+
+    private final int maxSize;
+
+    private final long targetMinNanos;
+
+    private final long targetMaxNanos;
+
+    private final Map<Long, Sizing> sizings = new ConcurrentHashMap<>();
+
+    private final Map<String, AtomicInteger> gauges = new ConcurrentHashMap<>();
+
+    public AdaptiveChunkCompletionPolicy(MeterRegistry registry, int initialSize, int minSize, int maxSize,
+                                         long targetMinMillis, long targetMaxMillis) {
+        Assert.isTrue(minSize > 0 && minSize <= maxSize, "minSize must be positive and not larger than maxSize");
+        Assert.isTrue(targetMinMillis > 0 && targetMinMillis <= targetMaxMillis, "target window must be positive and ordered");
+        this.registry = registry;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.initialSize = clamp(initialSize);
+        this.targetMinNanos = TimeUnit.MILLISECONDS.toNanos(targetMinMillis);
+        this.targetMaxNanos = TimeUnit.MILLISECONDS.toNanos(targetMaxMillis);
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        sizing(stepExecution);
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        sizings.remove(stepExecution.getId());
+        return null;
+    }
+
+    /*
+        Runs on the step's thread, before the chunk reads its first item
+        The size is read once per chunk, so an adjustment never changes a chunk that is already running
+     */
+    @Override
+    public RepeatContext start(RepeatContext parent) {
+        final StepContext context = StepSynchronizationManager.getContext();
+        if (context == null) {
+            return new SizedRepeatContext(parent, initialSize);
+        }
+        final Sizing sizing = sizing(context.getStepExecution());
+        sizing.currentSize = sizing.chunkSize;
+        return new SizedRepeatContext(parent, sizing.currentSize);
+    }
+
+    @Override
+    public boolean isComplete(RepeatContext context) {
+        return context.getStartedCount() >= ((SizedRepeatContext) context).size;
+    }
+
+    @Override
+    public void beforeChunk(ChunkContext context) {
+        final StepExecution stepExecution = context.getStepContext().getStepExecution();
+        context.setAttribute(START_NANOS_ATTRIBUTE, System.nanoTime());
+        context.setAttribute(START_COUNT_ATTRIBUTE, stepExecution.getReadCount() + stepExecution.getReadSkipCount());
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+        final Object startNanos = context.getAttribute(START_NANOS_ATTRIBUTE);
+        final Object startCount = context.getAttribute(START_COUNT_ATTRIBUTE);
+        if (startNanos == null || startCount == null) {
+            return;
+        }
+        final StepExecution stepExecution = context.getStepContext().getStepExecution();
+        final Sizing sizing = sizing(stepExecution);
+        final int items = stepExecution.getReadCount() + stepExecution.getReadSkipCount() - (Integer) startCount;
+        final long elapsed = System.nanoTime() - (Long) startNanos;
+        if (items > 0 && elapsed > 0) {
+            adjust(sizing, items, elapsed);
+        }
+        stepExecution.getExecutionContext().putInt(CHUNK_SIZE_KEY, sizing.chunkSize);
+        stepExecution.getExecutionContext().putLong(ITEMS_PER_SECOND_KEY, sizing.itemsPerSecond);
+        sizing.gauge.set(sizing.chunkSize);
+    }
+
+    /*
+        A failed chunk is retried or skipped item by item, smaller chunks make that cheaper
+     */
+    @Override
+    public void afterChunkError(ChunkContext context) {
+        final Sizing sizing = sizing(context.getStepContext().getStepExecution());
+        sizing.chunkSize = clamp(sizing.chunkSize / 2);
+        sizing.gauge.set(sizing.chunkSize);
+    }
+
+    /*
+        The size the next chunk of the step execution starts with
+     */
+    public int getChunkSize(StepExecution stepExecution) {
+        return sizing(stepExecution).chunkSize;
+    }
+
+    private void adjust(Sizing sizing, int items, long elapsed) {
+        final double measured = (double) elapsed / items;
+        sizing.nanosPerItem = sizing.nanosPerItem < 0 ? measured : SMOOTHING * measured + (1 - SMOOTHING) * sizing.nanosPerItem;
+        sizing.itemsPerSecond = (long) (TimeUnit.SECONDS.toNanos(1) / sizing.nanosPerItem);
+
+        // a partial last chunk says nothing about the size, only full chunks move it
+        if (items < sizing.currentSize || (elapsed >= targetMinNanos && elapsed <= targetMaxNanos)) {
+            return;
+        }
+        final long target = (targetMinNanos + targetMaxNanos) / 2;
+        final long ideal = (long) (target / sizing.nanosPerItem);
+        final int previous = sizing.chunkSize;
+        sizing.chunkSize = clamp(Math.max(previous / 2, Math.min(ideal, (long) previous * 2)));
+        if (sizing.chunkSize != previous) {
+            log.debug("Chunk of {} items took {} ms, chunk size {} -> {}", items, TimeUnit.NANOSECONDS.toMillis(elapsed), previous, sizing.chunkSize);
+        }
+    }
+
+    private Sizing sizing(StepExecution stepExecution) {
+        return sizings.computeIfAbsent(stepExecution.getId(), id -> {
+            final int size = stepExecution.getExecutionContext().containsKey(CHUNK_SIZE_KEY)
+                    ? clamp(stepExecution.getExecutionContext().getInt(CHUNK_SIZE_KEY))
+                    : initialSize;
+            return new Sizing(size, gauge(stepExecution));
+        });
+    }
+
+    private AtomicInteger gauge(StepExecution stepExecution) {
+        final String job = stepExecution.getJobExecution().getJobInstance().getJobName();
+        final String step = BatchMetricsListener.stepName(stepExecution);
+        return gauges.computeIfAbsent(job + "/" + step, key -> {
+            final AtomicInteger size = new AtomicInteger(initialSize);
+            Gauge.builder("batch.chunk.size", size, AtomicInteger::get)
+                    .tags("job", job, "step", step)
+                    .description("Chunk size chosen by the adaptive completion policy")
+                    .register(registry);
+            return size;
+        });
+    }
+
+    private int clamp(long size) {
+        return (int) Math.max(minSize, Math.min(maxSize, size));
+    }
+
+    /*
+        What one step execution learned, only used by the thread running that step execution
+     */
+    private static class Sizing {
+        final AtomicInteger gauge;
+
+        int chunkSize;
+
+        // the size of the chunk that is running
+        int currentSize;
+
+        double nanosPerItem = -1d;
+
+        long itemsPerSecond;
+
+        Sizing(int chunkSize, AtomicInteger gauge) {
+            this.chunkSize = chunkSize;
+            this.currentSize = chunkSize;
+            this.gauge = gauge;
+        }
+    }
+
+    private static class SizedRepeatContext extends RepeatContextSupport {
+        private final int size;
+
+        SizedRepeatContext(RepeatContext parent, int size) {
+            super(parent);
+            this.size = size;
+        }
+    }
+}
@@ -1,48 +1,151 @@
 package com.example.demo.batch;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ItemReadListener;
 import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecutionListener;
 import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecutionListener;
 import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
 import org.springframework.batch.core.configuration.annotation.JobBuilderFactory;
 import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.job.builder.FlowBuilder;
+import org.springframework.batch.core.job.flow.Flow;
+import org.springframework.batch.core.job.flow.FlowExecutionStatus;
+import org.springframework.batch.core.job.flow.JobExecutionDecider;
 import org.springframework.batch.core.launch.support.RunIdIncrementer;
-import org.springframework.batch.item.database.BeanPropertyItemSqlParameterSourceProvider;
-import org.springframework.batch.item.database.JdbcBatchItemWriter;
+import org.springframework.batch.core.step.builder.SimpleStepBuilder;
+import org.springframework.batch.core.step.tasklet.TaskletStep;
+import org.springframework.batch.integration.async.AsyncItemProcessor;
+import org.springframework.batch.integration.async.AsyncItemWriter;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ItemReader;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemWriter;
 import org.springframework.batch.item.database.builder.JdbcBatchItemWriterBuilder;
-import org.springframework.batch.item.file.FlatFileItemReader;
 import org.springframework.batch.item.file.builder.FlatFileItemReaderBuilder;
 import org.springframework.batch.item.file.mapping.BeanWrapperFieldSetMapper;
+import org.springframework.batch.item.support.CompositeItemProcessor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.util.Assert;
 
 import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 @EnableBatchProcessing
 public class BatchJobConfiguration {
+    /*
+        A directory or a file pattern, see MultiFilePartitioner, importUserJob then imports one partition per file
+     */
+    public static final String INPUT_FILES_PARAMETER = "input.files";
+
+    private static final String ITEM_READER = "personItemReader";
+    private static final String FILE_READER = "personFileReader";
+
     @Autowired
     public JobBuilderFactory jobBuilderFactory;
 
     @Autowired
     public StepBuilderFactory stepBuilderFactory;
 
+    @Autowired
+    private BatchMetricsListener metricsListener;
+
+    @Autowired
+    private ResourceLoader resourceLoader;
+
+    @Value("${batch.import.input:classpath:sample-data.csv}")
+    private Resource input;
+
+    @Value("${batch.import.compression:auto}")
+    private String compression;
+
+    @Value("${batch.import.reader:flat}")
+    private String readerType;
+
+    @Value("${batch.import.writer:jdbc}")
+    private String writerType;
+
+    @Value("${batch.import.incremental.enabled:false}")
+    private boolean incremental;
+
+    @Value("${batch.import.dedup.enabled:false}")
+    private boolean dedup;
+
+    @Value("${batch.import.dedup.max-keys:4000000}")
+    private int dedupMaxKeys;
+
+    @Value("${batch.import.dedup.bloom-bits-per-key:10}")
+    private int dedupBloomBitsPerKey;
+
+    @Value("${batch.import.dedup.off-heap:false}")
+    private boolean dedupOffHeap;
+
+    @Value("${batch.import.partitioned:false}")
+    private boolean partitioned;
+
+    @Value("${batch.import.grid-size:4}")
+    private int gridSize;
+
+    @Value("${batch.import.chunk.size:10}")
+    private int chunkSize;
+
+    @Value("${batch.import.chunk.adaptive:false}")
+    private boolean adaptiveChunk;
+
+    @Value("${batch.import.chunk.min-size:10}")
+    private int chunkMinSize;
+
+    @Value("${batch.import.chunk.max-size:10000}")
+    private int chunkMaxSize;
+
+    @Value("${batch.import.chunk.target-min-millis:500}")
+    private long chunkTargetMinMillis;
+
+    @Value("${batch.import.chunk.target-max-millis:2000}")
+    private long chunkTargetMaxMillis;
+
+    @Value("${batch.import.chunk.whole-chunk-processing:false}")
+    private boolean wholeChunkProcessing;
+
+    @Value("${batch.import.async.enabled:false}")
+    private boolean asyncProcessing;
+
+    @Value("${batch.import.async.threads:0}")
+    private int asyncThreads;
+
+    @Value("${batch.import.async.queue-capacity:1000}")
+    private int asyncQueueCapacity;
+
+    @Value("${batch.import.progress.every-items:100000}")
+    private long progressEveryItems;
+
+    @Value("${batch.import.progress.every-seconds:10}")
+    private long progressEverySeconds;
+
     // tag::readerwriterprocessor[]
     /*
         reader() creates an ItemReader
+        batch.import.reader=mapped switches from FlatFileItemReader to the allocation light MappedPersonItemReader
+        Compressed input is read through DecompressingResource, restart skips the read records of the decompressed stream
      */
     @Bean
-    public FlatFileItemReader<Person> reader() {
-        return new FlatFileItemReaderBuilder<Person>()
-                .name("personItemReader")
-                .resource(new ClassPathResource("sample-data.csv"))
-                .delimited()
-                .names(new String[]{"firstName", "lastName"})
-                .fieldSetMapper(new BeanWrapperFieldSetMapper<Person>() {{
-                    setTargetType(Person.class);
-                }})
-                .build();
+    public ItemStreamReader<Person> reader() {
+        return personReader(ITEM_READER, input, 0, Integer.MAX_VALUE);
     }
 
     /*
@@ -53,47 +156,327 @@ public class BatchJobConfiguration {
         return new PersonItemProcessor();
     }
 
+    /*
+        deduplicationProcessor(DataSource) drops people that are known already, from an index loaded when the step starts
+     */
+    @Bean
+    public PersonDeduplicationProcessor deduplicationProcessor(DataSource dataSource) {
+        return new PersonDeduplicationProcessor(dataSource, dedupMaxKeys, dedupBloomBitsPerKey, dedupOffHeap);
+    }
+
+    /*
+        Hands every chunk to processor() in one processChunk call, items are still processed one by one on failure
+     */
+    @Bean
+    public ChunkItemProcessorAdapter<Person, Person> chunkProcessor() {
+        return new ChunkItemProcessorAdapter<>(processor());
+    }
+
+    /*
+        batch.import.chunk.whole-chunk-processing puts chunkProcessor() in front of processor()
+        batch.import.dedup.enabled chains deduplicationProcessor(...) after it, it compares upper-cased names
+     */
+    private ItemProcessor<Person, Person> personProcessor() {
+        ItemProcessor<Person, Person> processor = wholeChunkProcessing ? chunkProcessor() : processor();
+        if (!dedup) {
+            return processor;
+        }
+        CompositeItemProcessor<Person, Person> compositeProcessor = new CompositeItemProcessor<>();
+        compositeProcessor.setDelegates(Arrays.asList(processor, deduplicationProcessor(null)));
+        return compositeProcessor;
+    }
+
     /*
         write(DataSource) creates an ItemWriter
         This one is aimed at a JDBC destination and automatically gets a copy of the dataSource created by @EnableBatchProcessing
+        Parameters are bound through compiled accessors rather than BeanWrapper reflection per item
+        batch.import.writer=multi-row|csvread|copy switches to PersonBulkItemWriter, which loads a whole chunk per statement
+        batch.import.incremental.enabled replaces both with IncrementalPersonItemWriter, which writes changed rows only
      */
     @Bean
-    public JdbcBatchItemWriter<Person> writer(DataSource dataSource) {
+    public ItemWriter<Person> writer(DataSource dataSource) {
+        if (incremental) {
+            return new IncrementalPersonItemWriter(dataSource);
+        }
+        if (!"jdbc".equals(writerType)) {
+            return new PersonBulkItemWriter(dataSource, PersonBulkItemWriter.Strategy.of(writerType));
+        }
         return new JdbcBatchItemWriterBuilder<Person>()
-                .itemSqlParameterSourceProvider(new BeanPropertyItemSqlParameterSourceProvider<>())
-                .sql("INSERT INTO people (first_name, last_name) VALUES (:firstName, :lastName)")
+                .itemPreparedStatementSetter(new CompiledItemPreparedStatementSetter<>(Person.class, "firstName", "lastName"))
+                .sql("INSERT INTO people (first_name, last_name) VALUES (?, ?)")
                 .dataSource(dataSource)
                 .build();
     }
+
+    /*
+        partitionReader(...) creates a step scoped reader bound to the line range of one partition
+        The range comes from the partition's ExecutionContext, the read count is saved in the same context for restart
+     */
+    @Bean
+    @StepScope
+    public ItemStreamReader<Person> partitionReader(
+            @Value("#{stepExecutionContext['" + LineRangePartitioner.START_LINE_KEY + "']}") Integer startLine,
+            @Value("#{stepExecutionContext['" + LineRangePartitioner.END_LINE_KEY + "']}") Integer endLine) {
+        return personReader("personPartitionReader", input, startLine, endLine);
+    }
+
+    /*
+        filePartitionReader(...) creates a step scoped reader for the file of one MultiFilePartitioner partition
+     */
+    @Bean
+    @StepScope
+    public ItemStreamReader<Person> filePartitionReader(
+            @Value("#{stepExecutionContext['" + MultiFilePartitioner.FILE_KEY + "']}") String file) {
+        return personReader(FILE_READER, resourceLoader.getResource(file), 0, Integer.MAX_VALUE);
+    }
+
+    private ItemStreamReader<Person> personReader(String name, Resource resource, int startLine, int endLine) {
+        if ("mapped".equals(readerType)) {
+            Assert.state(compressionOf(resource) == DecompressingResource.Compression.NONE,
+                    "batch.import.reader=mapped needs an uncompressed input, use batch.import.reader=flat for " + resource);
+            MappedPersonItemReader reader = new MappedPersonItemReader();
+            reader.setName(name);
+            reader.setResource(resource);
+            reader.setCurrentItemCount(startLine);
+            reader.setMaxItemCount(endLine);
+            return reader;
+        }
+        return new FlatFileItemReaderBuilder<Person>()
+                .name(name)
+                .resource(decompressed(resource))
+                .delimited()
+                .names(new String[]{"firstName", "lastName"})
+                .fieldSetMapper(new BeanWrapperFieldSetMapper<Person>() {{
+                    setTargetType(Person.class);
+                }})
+                .currentItemCount(startLine)
+                .maxItemCount(endLine)
+                .build();
+    }
+
+    /*
+        Every partition decompresses the input from its start up to its first line, the reading itself stays parallel
+     */
+    private Resource decompressed(Resource resource) {
+        DecompressingResource.Compression compression = DecompressingResource.Compression.of(this.compression);
+        return compression == DecompressingResource.Compression.NONE ? resource : new DecompressingResource(resource, compression);
+    }
+
+    private DecompressingResource.Compression compressionOf(Resource resource) {
+        try {
+            return DecompressingResource.detect(resource, DecompressingResource.Compression.of(compression));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read " + resource, e);
+        }
+    }
+
+    /*
+        progressReporter() logs aggregated progress instead of one line per item
+     */
+    @Bean
+    public ItemProgressReporter progressReporter() {
+        return new ItemProgressReporter(progressEveryItems, progressEverySeconds);
+    }
     // end::readerwriterprocessor[]
 
     // tag::jobstep[]
     /*
         Jobs are built from steps, where each step can involve a reader, a processor, and a writer
+        The input.files job parameter routes the job to multiFileStep1, without it the job reads batch.import.input
      */
     @Bean
-    public Job importUserJob(JobCompletionNotificationListener listener, Step step1) {
+    public Job importUserJob(JobCompletionNotificationListener listener, Step step1, Step partitionedStep1, Step multiFileStep1) {
         return jobBuilderFactory.get("importUserJob")
                 .incrementer(new RunIdIncrementer())
                 .listener(listener)
-                .flow(step1)
+                .listener(progressReporter())
+                .listener((JobExecutionListener) metricsListener)
+                .start(new FlowBuilder<Flow>("importFlow")
+                        .start(inputDecider())
+                            .on(INPUT_FILES_PARAMETER).to(multiFileStep1)
+                        .from(inputDecider())
+                            .on("*").to(partitioned ? partitionedStep1 : step1)
+                        .build())
                 .end()
                 .build();
     }
 
+    /*
+        Decided again on restart from the same job parameters, so a restart resumes the same step
+     */
+    @Bean
+    public JobExecutionDecider inputDecider() {
+        return (jobExecution, stepExecution) -> new FlowExecutionStatus(
+                jobExecution.getJobParameters().getString(INPUT_FILES_PARAMETER) != null ? INPUT_FILES_PARAMETER : "input");
+    }
+
 
 
     /*
         In the step definition, you define how much data to write at a time. In this case, it writes up to ten records at a time
+        unless batch.import.chunk.size says otherwise, batch.import.chunk.adaptive lets chunkCompletionPolicy() pick the size
+     */
+    @Bean
+    public Step step1(ItemWriter<Person> writer, DataSource dataSource) {
+        TaskletStep step = (TaskletStep) personStep("step1", reader(), writer);
+        if (incremental) {
+            Assert.state(!partitioned, "batch.import.incremental.enabled does not support batch.import.partitioned");
+            step.registerStepExecutionListener(new ImportWatermarkListener(dataSource, ITEM_READER,
+                    stepExecution -> input, this::decompressed));
+        }
+        return step;
+    }
+
+    /*
+        The partitioned variant of step1. The input is split into line ranges and every range runs as its own worker step
+        on importTaskExecutor, so the import scales with the grid size instead of being bound to a single thread
+     */
+    @Bean
+    public Step partitionedStep1(Step personWorkerStep) {
+        return stepBuilderFactory.get("partitionedStep1")
+                .partitioner("personWorkerStep", new LineRangePartitioner(decompressed(input)))
+                .step(personWorkerStep)
+                .gridSize(gridSize)
+                .taskExecutor(importTaskExecutor())
+                .build();
+    }
+
+    @Bean
+    public Step personWorkerStep(ItemWriter<Person> writer) {
+        return personStep("personWorkerStep", partitionReader(null, null), writer);
+    }
+
+    /*
+        One worker step per file of the input.files job parameter on importTaskExecutor, the largest files first
+        Every file keeps its own read count for restart, files completed by a failed execution are not read again
      */
     @Bean
-    public Step step1(JdbcBatchItemWriter<Person> writer) {
-        return stepBuilderFactory.get("step1")
-                .<Person, Person> chunk(10)
-                .reader(reader())
-                .processor(processor())
+    public Step multiFileStep1(Step fileWorkerStep) {
+        LargestFirstPartitionHandler partitionHandler = new LargestFirstPartitionHandler();
+        partitionHandler.setStep(fileWorkerStep);
+        partitionHandler.setTaskExecutor(importTaskExecutor());
+        return stepBuilderFactory.get("multiFileStep1")
+                .partitioner("fileWorkerStep", multiFilePartitioner(null))
+                .partitionHandler(partitionHandler)
+                .build();
+    }
+
+    @Bean
+    @StepScope
+    public MultiFilePartitioner multiFilePartitioner(@Value("#{jobParameters['" + INPUT_FILES_PARAMETER + "']}") String location) {
+        return new MultiFilePartitioner(location);
+    }
+
+    @Bean
+    public Step fileWorkerStep(ItemWriter<Person> writer, DataSource dataSource) {
+        TaskletStep step = (TaskletStep) personStep("fileWorkerStep", filePartitionReader(null), writer);
+        if (incremental) {
+            step.registerStepExecutionListener(new ImportWatermarkListener(dataSource, FILE_READER,
+                    stepExecution -> resourceLoader.getResource(stepExecution.getExecutionContext().getString(MultiFilePartitioner.FILE_KEY)),
+                    this::decompressed));
+        }
+        // after the watermark, so it sees the read count an appended file starts from
+        step.registerStepExecutionListener(new FileThroughputListener(FILE_READER));
+        return step;
+    }
+
+    /*
+        batch.import.async.enabled processes a chunk in parallel: the whole chunk is read first, then the processing
+        of its items fans out across the threads of asyncProcessor(), and the writer waits for all their futures
+        before writing the chunk. Reading and writing are not overlapped with processing
+     */
+    private Step personStep(String stepName, ItemReader<Person> reader, ItemWriter<Person> writer) {
+        if (asyncProcessing) {
+            AsyncItemWriter<Person> asyncWriter = new AsyncItemWriter<>();
+            asyncWriter.setDelegate(writer);
+            return this.<Future<Person>> chunk(stepName)
+                    .reader(reader)
+                    .processor(asyncProcessor())
+                    .writer(asyncWriter)
+                    .listener(progressReporter())
+                    .build();
+        }
+        return this.<Person> chunk(stepName)
+                .reader(reader)
+                .processor(personProcessor())
                 .writer(writer)
+                .listener(progressReporter())
                 .build();
     }
+
+    /*
+        Sizes chunks to keep each commit inside the target time window, shared by all steps of the import,
+        every step execution is sized on its own
+     */
+    @Bean
+    public AdaptiveChunkCompletionPolicy chunkCompletionPolicy(MeterRegistry meterRegistry) {
+        return new AdaptiveChunkCompletionPolicy(meterRegistry, chunkSize, chunkMinSize, chunkMaxSize, chunkTargetMinMillis, chunkTargetMaxMillis);
+    }
+
+    private <O> SimpleStepBuilder<Person, O> chunk(String stepName) {
+        SimpleStepBuilder<Person, O> builder;
+        if (adaptiveChunk) {
+            builder = stepBuilderFactory.get(stepName)
+                    .<Person, O> chunk(chunkCompletionPolicy(null));
+            builder.listener((ChunkListener) chunkCompletionPolicy(null));
+            builder.listener((StepExecutionListener) chunkCompletionPolicy(null));
+        } else {
+            builder = stepBuilderFactory.get(stepName)
+                    .<Person, O> chunk(chunkSize);
+        }
+        // the item listener interfaces of the metrics listener are registered along with these two
+        builder.listener((StepExecutionListener) metricsListener);
+        builder.listener((ChunkListener) metricsListener);
+        // the processors may be nested in a composite or an async processor, which hides their listener interfaces
+        if (wholeChunkProcessing) {
+            builder.listener((ItemReadListener<Person>) chunkProcessor());
+            builder.listener((ChunkListener) chunkProcessor());
+        }
+        if (dedup) {
+            builder.listener((StepExecutionListener) deduplicationProcessor(null));
+            builder.listener((ChunkListener) deduplicationProcessor(null));
+        }
+        return builder;
+    }
+
+    /*
+        Runs PersonItemProcessor on processorTaskExecutor(), one future per item
+        The delegate is timed where it runs, the process listener of the step would only time creating the futures
+     */
+    @Bean
+    public AsyncItemProcessor<Person, Person> asyncProcessor() {
+        AsyncItemProcessor<Person, Person> asyncProcessor = new AsyncItemProcessor<>();
+        asyncProcessor.setDelegate(metricsListener.timed(personProcessor()));
+        asyncProcessor.setTaskExecutor(processorTaskExecutor());
+        return asyncProcessor;
+    }
+
+    /*
+        A bounded pool with a bounded queue, when both are full the reading thread processes the item itself,
+        which throttles reading to the processing rate and keeps the number of pending items bounded
+     */
+    @Bean
+    public TaskExecutor processorTaskExecutor() {
+        int threads = asyncThreads > 0 ? asyncThreads : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+        taskExecutor.setCorePoolSize(threads);
+        taskExecutor.setMaxPoolSize(threads);
+        taskExecutor.setQueueCapacity(asyncQueueCapacity);
+        taskExecutor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        taskExecutor.setThreadNamePrefix("process-");
+        return taskExecutor;
+    }
+
+    /*
+        One thread per partition, worker steps beyond the grid size wait in the queue
+     */
+    @Bean
+    public TaskExecutor importTaskExecutor() {
+        ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+        taskExecutor.setCorePoolSize(gridSize);
+        taskExecutor.setMaxPoolSize(gridSize);
+        taskExecutor.setThreadNamePrefix("import-");
+        return taskExecutor;
+    }
     // end::jobstep[]
 }
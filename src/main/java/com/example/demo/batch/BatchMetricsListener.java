@@ -0,0 +1,263 @@
+package com.example.demo.batch;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.ItemProcessListener;
+import org.springframework.batch.core.ItemReadListener;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+    BatchMetricsListener publishes job, step and chunk timings and item counts to Micrometer
+
+    batch.job / batch.step          duration per execution, tagged with job, step and status
+    batch.chunk                     duration of every chunk including its commit, with a percentile histogram
+    batch.chunk.read/process/write  time spent in each phase per chunk
+    batch.chunk.commit              time from the end of the write to the end of the chunk, i.e. the commit
+    batch.items                     read, write, filter and skip counts per step, added when the step ends
+    batch.rollbacks                 rolled back chunks per step, the import steps are not fault tolerant so retries show up here
+
+    Item phases are timed with System.nanoTime into a per thread accumulator and recorded once per chunk,
+    so the per item cost is a few nanoTime calls. Register it on the job and on every chunk oriented step
+    as StepExecutionListener and as ChunkListener, the item listener interfaces are picked up from there
+
+    With AsyncItemProcessor the process listener only sees the futures being created on the step thread,
+    so wrap the delegate of the AsyncItemProcessor with timed(...): its processing is summed per step execution
+    over all processor threads, which can exceed the chunk's wall time, and replaces the step thread's process time.
+    batch.chunk.write then includes the wait for the futures, i.e. for processing that had not finished yet
+ */
+@Component
+public class BatchMetricsListener implements JobExecutionListener, StepExecutionListener, ChunkListener,
+        ItemReadListener<Object>, ItemProcessListener<Object, Object>, ItemWriteListener<Object> {
+
+    private final MeterRegistry registry;
+
+    private final Map<String, ChunkMeters> chunkMeters = new ConcurrentHashMap<>();
+
+    private final ThreadLocal<ChunkTiming> timing = ThreadLocal.withInitial(ChunkTiming::new);
+
+    // processing time of the timed(...) processors per step execution, since its last chunk ended
+    private final Map<Long, LongAdder> delegateProcessNanos = new ConcurrentHashMap<>();
+
+    public BatchMetricsListener(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void beforeJob(JobExecution jobExecution) {
+    }
+
+    @Override
+    public void afterJob(JobExecution jobExecution) {
+        Timer.builder("batch.job")
+                .tags("job", jobExecution.getJobInstance().getJobName(), "status", jobExecution.getStatus().name())
+                .register(registry)
+                .record(System.currentTimeMillis() - jobExecution.getStartTime().getTime(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        delegateProcessNanos.remove(stepExecution.getId());
+        final Tags tags = stepTags(stepExecution);
+        Timer.builder("batch.step")
+                .tags(tags.and("status", stepExecution.getStatus().name()))
+                .register(registry)
+                .record(System.currentTimeMillis() - stepExecution.getStartTime().getTime(), TimeUnit.MILLISECONDS);
+
+        count("batch.items", tags.and("type", "read"), stepExecution.getReadCount());
+        count("batch.items", tags.and("type", "write"), stepExecution.getWriteCount());
+        count("batch.items", tags.and("type", "filter"), stepExecution.getFilterCount());
+        count("batch.items", tags.and("type", "read.skip"), stepExecution.getReadSkipCount());
+        count("batch.items", tags.and("type", "process.skip"), stepExecution.getProcessSkipCount());
+        count("batch.items", tags.and("type", "write.skip"), stepExecution.getWriteSkipCount());
+        count("batch.rollbacks", tags, stepExecution.getRollbackCount());
+        return null;
+    }
+
+    @Override
+    public void beforeChunk(ChunkContext context) {
+        timing.get().start(System.nanoTime());
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+        final long now = System.nanoTime();
+        final ChunkTiming chunkTiming = timing.get();
+        final StepExecution stepExecution = context.getStepContext().getStepExecution();
+        final ChunkMeters meters = chunkMeters.computeIfAbsent(stepKey(stepExecution), this::chunkMeters);
+        final LongAdder processNanos = delegateProcessNanos.get(stepExecution.getId());
+
+        meters.chunk.record(now - chunkTiming.chunkStart, TimeUnit.NANOSECONDS);
+        meters.read.record(chunkTiming.readNanos, TimeUnit.NANOSECONDS);
+        meters.process.record(processNanos != null ? processNanos.sumThenReset() : chunkTiming.processNanos, TimeUnit.NANOSECONDS);
+        if (chunkTiming.writeEnd > 0) {
+            meters.write.record(chunkTiming.writeNanos, TimeUnit.NANOSECONDS);
+            meters.commit.record(now - chunkTiming.writeEnd, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void afterChunkError(ChunkContext context) {
+        final LongAdder processNanos = delegateProcessNanos.get(context.getStepContext().getStepExecution().getId());
+        if (processNanos != null) {
+            processNanos.reset();
+        }
+    }
+
+    @Override
+    public void beforeRead() {
+        timing.get().phaseStart = System.nanoTime();
+    }
+
+    @Override
+    public void afterRead(Object item) {
+        final ChunkTiming chunkTiming = timing.get();
+        chunkTiming.readNanos += System.nanoTime() - chunkTiming.phaseStart;
+    }
+
+    @Override
+    public void onReadError(Exception ex) {
+        afterRead(null);
+    }
+
+    @Override
+    public void beforeProcess(Object item) {
+        timing.get().phaseStart = System.nanoTime();
+    }
+
+    @Override
+    public void afterProcess(Object item, Object result) {
+        final ChunkTiming chunkTiming = timing.get();
+        chunkTiming.processNanos += System.nanoTime() - chunkTiming.phaseStart;
+    }
+
+    @Override
+    public void onProcessError(Object item, Exception e) {
+        afterProcess(item, null);
+    }
+
+    @Override
+    public void beforeWrite(List<?> items) {
+        timing.get().phaseStart = System.nanoTime();
+    }
+
+    @Override
+    public void afterWrite(List<?> items) {
+        final ChunkTiming chunkTiming = timing.get();
+        chunkTiming.writeEnd = System.nanoTime();
+        chunkTiming.writeNanos += chunkTiming.writeEnd - chunkTiming.phaseStart;
+    }
+
+    @Override
+    public void onWriteError(Exception exception, List<?> items) {
+    }
+
+    /*
+        Times delegate where it runs, for processors that run on other threads than the step, e.g. the delegate of
+        AsyncItemProcessor, which registers the step execution on its threads. Without a step context nothing is timed
+     */
+    public <I, O> ItemProcessor<I, O> timed(ItemProcessor<I, O> delegate) {
+        return item -> {
+            final StepContext context = StepSynchronizationManager.getContext();
+            if (context == null) {
+                return delegate.process(item);
+            }
+            final long start = System.nanoTime();
+            try {
+                return delegate.process(item);
+            } finally {
+                delegateProcessNanos.computeIfAbsent(context.getStepExecution().getId(), id -> new LongAdder())
+                        .add(System.nanoTime() - start);
+            }
+        };
+    }
+
+    private void count(String name, Tags tags, long amount) {
+        if (amount > 0) {
+            Counter.builder(name).tags(tags).register(registry).increment(amount);
+        }
+    }
+
+    private ChunkMeters chunkMeters(String key) {
+        final int separator = key.indexOf('/');
+        final Tags tags = Tags.of("job", key.substring(0, separator), "step", key.substring(separator + 1));
+        return new ChunkMeters(
+                Timer.builder("batch.chunk").tags(tags).publishPercentileHistogram().register(registry),
+                Timer.builder("batch.chunk.read").tags(tags).register(registry),
+                Timer.builder("batch.chunk.process").tags(tags).register(registry),
+                Timer.builder("batch.chunk.write").tags(tags).register(registry),
+                Timer.builder("batch.chunk.commit").tags(tags).register(registry));
+    }
+
+    private static Tags stepTags(StepExecution stepExecution) {
+        return Tags.of("job", stepExecution.getJobExecution().getJobInstance().getJobName(), "step", stepName(stepExecution));
+    }
+
+    private static String stepKey(StepExecution stepExecution) {
+        return stepExecution.getJobExecution().getJobInstance().getJobName() + "/" + stepName(stepExecution);
+    }
+
+    /*
+        Partition workers are named <step>:<partition>, the partition suffix is dropped to keep the tag cardinality bounded
+     */
+    static String stepName(StepExecution stepExecution) {
+        final String stepName = stepExecution.getStepName();
+        final int separator = stepName.indexOf(':');
+        return separator < 0 ? stepName : stepName.substring(0, separator);
+    }
+
+    private static class ChunkTiming {
+        private long chunkStart;
+        private long phaseStart;
+        private long readNanos;
+        private long processNanos;
+        private long writeNanos;
+        private long writeEnd;
+
+        void start(long now) {
+            chunkStart = now;
+            readNanos = 0;
+            processNanos = 0;
+            writeNanos = 0;
+            writeEnd = 0;
+        }
+    }
+
+    private static class ChunkMeters {
+        private final Timer chunk;
+        private final Timer read;
+        private final Timer process;
+        private final Timer write;
+        private final Timer commit;
+
+        ChunkMeters(Timer chunk, Timer read, Timer process, Timer write, Timer commit) {
+            this.chunk = chunk;
+            this.read = read;
+            this.process = process;
+            this.write = write;
+            this.commit = commit;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.demo.batch;
+
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.explore.support.JobExplorerFactoryBean;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.support.JobRepositoryFactoryBean;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.batch.BasicBatchConfigurer;
+import org.springframework.boot.autoconfigure.batch.BatchDataSourceInitializer;
+import org.springframework.boot.autoconfigure.batch.BatchProperties;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+
+/*
+    The job repository behind the JobLauncher and the builder factories
+    It is Boot's JDBC repository, unless batch.repository.lightweight-jobs lists jobs whose metadata
+    is kept in memory only, see BoundedInMemoryJobRepository and JobNameRoutingJobRepository
+    With a @MetadataDataSource the repository, the explorer and the schema live there, the transaction manager
+    of the steps stays on the primary DataSource of the business writes, so chunk and metadata commits are
+    no longer atomic, see DataSourceConfiguration
+ */
+@Configuration
+public class BatchRepositoryConfiguration implements DisposableBean {
+    @Value("${batch.repository.lightweight-jobs:}")
+    private String[] lightweightJobs;
+
+    @Value("${batch.repository.max-executions-per-job:100}")
+    private int maxExecutionsPerJob;
+
+    @Value("${batch.repository.write-behind:false}")
+    private boolean writeBehind;
+
+    @Value("${batch.repository.write-behind-queue-capacity:1000}")
+    private int writeBehindQueueCapacity;
+
+    // no bean, injecting a JobRepository must give the routing repository of the configurer
+    private BoundedInMemoryJobRepository lightweightJobRepository;
+
+    /*
+        Drains the write-behind of the lightweight repository
+     */
+    @Override
+    public void destroy() throws Exception {
+        if (lightweightJobRepository != null) {
+            lightweightJobRepository.destroy();
+        }
+    }
+
+    /*
+        Replaces the BasicBatchConfigurer of Boot, only the repository and the explorer it creates differ
+     */
+    @Bean
+    public BasicBatchConfigurer batchConfigurer(BatchProperties properties, DataSource dataSource,
+                                                @MetadataDataSource ObjectProvider<DataSource> metadataDataSource,
+                                                ObjectProvider<TransactionManagerCustomizers> transactionManagerCustomizers) {
+        DataSource metadata = metadataDataSource.getIfAvailable(() -> dataSource);
+        return new BasicBatchConfigurer(properties, dataSource, transactionManagerCustomizers.getIfAvailable()) {
+            @Override
+            protected JobRepository createJobRepository() throws Exception {
+                JobRepository jobRepository = metadata == dataSource ? super.createJobRepository() : metadataJobRepository();
+                if (lightweightJobs.length == 0) {
+                    return jobRepository;
+                }
+                lightweightJobRepository = new BoundedInMemoryJobRepository();
+                lightweightJobRepository.setMaxExecutionsPerJob(maxExecutionsPerJob);
+                lightweightJobRepository.setWriteBehindQueueCapacity(writeBehind ? writeBehindQueueCapacity : 0);
+                lightweightJobRepository.setWriteBehindTarget(jobRepository);
+                lightweightJobRepository.afterPropertiesSet();
+                return new JobNameRoutingJobRepository(jobRepository, lightweightJobRepository, Arrays.asList(lightweightJobs));
+            }
+
+            @Override
+            protected JobExplorer createJobExplorer() throws Exception {
+                if (metadata == dataSource) {
+                    return super.createJobExplorer();
+                }
+                JobExplorerFactoryBean factory = new JobExplorerFactoryBean();
+                factory.setDataSource(metadata);
+                if (StringUtils.hasText(properties.getTablePrefix())) {
+                    factory.setTablePrefix(properties.getTablePrefix());
+                }
+                factory.afterPropertiesSet();
+                return factory.getObject();
+            }
+
+            /*
+                Same as Boot's, with its own transaction manager for the create methods on the metadata DataSource
+             */
+            private JobRepository metadataJobRepository() throws Exception {
+                JobRepositoryFactoryBean factory = new JobRepositoryFactoryBean();
+                factory.setDataSource(metadata);
+                factory.setTransactionManager(new DataSourceTransactionManager(metadata));
+                String isolationLevel = determineIsolationLevel();
+                if (isolationLevel != null) {
+                    factory.setIsolationLevelForCreate(isolationLevel);
+                }
+                if (StringUtils.hasText(properties.getTablePrefix())) {
+                    factory.setTablePrefix(properties.getTablePrefix());
+                }
+                factory.afterPropertiesSet();
+                return factory.getObject();
+            }
+        };
+    }
+
+    /*
+        Replaces the initializer of Boot, which would create the schema on the primary DataSource
+     */
+    @Bean
+    public BatchDataSourceInitializer batchDataSourceInitializer(BatchProperties properties, DataSource dataSource,
+                                                                 @MetadataDataSource ObjectProvider<DataSource> metadataDataSource,
+                                                                 ResourceLoader resourceLoader) {
+        return new BatchDataSourceInitializer(metadataDataSource.getIfAvailable(() -> dataSource), resourceLoader, properties);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.demo.batch;
+
+/*
+    BloomFilter over 64 bit hashes, the probes are derived from the two halves of the hash (Kirsch-Mitzenmacher)
+    A negative answer is certain, a positive one is wrong with a rate that depends on bits per key and fill:
+    10 bits per key give about 1% at the expected number of keys
+    Not thread safe
+ */
+public class BloomFilter {
+    private final long[] bits;
+
+    private final long mask;
+
+    private final int probes;
+
+    public BloomFilter(long expectedKeys, int bitsPerKey) {
+        // checked before multiplying, an overflowed bit count would leave an empty filter
+        if (expectedKeys > (Integer.MAX_VALUE - 8) / 2 * (long) Long.SIZE / bitsPerKey) {
+            throw new IllegalArgumentException("Too many keys for a BloomFilter: " + expectedKeys);
+        }
+        final long wanted = Math.max(64, expectedKeys * bitsPerKey);
+        final long size = Long.highestOneBit(wanted - 1) << 1;
+        if (size / Long.SIZE > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many keys for a BloomFilter: " + expectedKeys);
+        }
+        this.bits = new long[(int) (size / Long.SIZE)];
+        this.mask = size - 1;
+        this.probes = Math.max(1, Math.min(16, (int) Math.round(bitsPerKey * Math.log(2))));
+    }
+
+    public void add(long hash) {
+        final int h1 = (int) hash;
+        final int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < probes; i++) {
+            final long bit = (h1 + (long) i * h2) & mask;
+            bits[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    public boolean mightContain(long hash) {
+        final int h1 = (int) hash;
+        final int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < probes; i++) {
+            final long bit = (h1 + (long) i * h2) & mask;
+            if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long sizeInBytes() {
+        return (long) bits.length * Long.BYTES;
+    }
+}
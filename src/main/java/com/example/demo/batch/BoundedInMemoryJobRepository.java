@@ -0,0 +1,392 @@
+package com.example.demo.batch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.DefaultJobKeyGenerator;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobKeyGenerator;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.repository.JobExecutionAlreadyRunningException;
+import org.springframework.batch.core.repository.JobInstanceAlreadyCompleteException;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.JobRestartException;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.util.Assert;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+    BoundedInMemoryJobRepository keeps the metadata of high frequency jobs in memory instead of the BATCH_* tables,
+    a launch then costs a few map operations instead of a dozen statements and commits against the database
+
+    Only the last maxExecutionsPerJob finished executions of every job are kept, running executions are never evicted
+    The contexts live on the execution objects, so there is nothing to save for them
+    Restart semantics only hold within that window: an evicted instance can run again with the same parameters,
+    and nothing survives a restart of the application, so it is meant for jobs that are simply run again on the next fire
+
+    With a write-behind target every finished execution is copied there on a single background thread,
+    through a bounded queue so a slow database never holds up the jobs. Copies get the ids of the target
+    and are dropped with a warning when the queue is full
+ */
+public class BoundedInMemoryJobRepository implements JobRepository, InitializingBean, DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(BoundedInMemoryJobRepository.class);
+
+    private final JobKeyGenerator<JobParameters> jobKeyGenerator = new DefaultJobKeyGenerator();
+
+    private final Map<String, JobHistory> histories = new ConcurrentHashMap<>();
+
+    private final AtomicLong ids = new AtomicLong();
+
+    private int maxExecutionsPerJob = 100;
+
+    private int writeBehindQueueCapacity = 0;
+
+    private JobRepository writeBehindTarget;
+
+    private ThreadPoolExecutor writeBehindExecutor;
+
+    public void setMaxExecutionsPerJob(int maxExecutionsPerJob) {
+        this.maxExecutionsPerJob = maxExecutionsPerJob;
+    }
+
+    /*
+        0 disables the write-behind
+     */
+    public void setWriteBehindQueueCapacity(int writeBehindQueueCapacity) {
+        this.writeBehindQueueCapacity = writeBehindQueueCapacity;
+    }
+
+    public void setWriteBehindTarget(JobRepository writeBehindTarget) {
+        this.writeBehindTarget = writeBehindTarget;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        Assert.isTrue(maxExecutionsPerJob > 0, "maxExecutionsPerJob must be positive");
+        Assert.isTrue(writeBehindQueueCapacity >= 0, "writeBehindQueueCapacity must not be negative");
+        if (writeBehindQueueCapacity > 0) {
+            writeBehindExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(writeBehindQueueCapacity),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "job-repository-write-behind");
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    (runnable, executor) -> log.warn("Write-behind queue is full, dropped the metadata of a finished job execution."));
+        }
+    }
+
+    /*
+        Waits a little for the queued copies, so a regular shutdown does not lose them
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        if (writeBehindExecutor != null) {
+            writeBehindExecutor.shutdown();
+            if (!writeBehindExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("Dropped the metadata of {} finished job executions on shutdown.", writeBehindExecutor.shutdownNow().size());
+            }
+        }
+    }
+
+    @Override
+    public boolean isJobInstanceExists(String jobName, JobParameters jobParameters) {
+        JobHistory history = history(jobName);
+        String key = jobKeyGenerator.generateKey(jobParameters);
+        synchronized (history) {
+            return history.instance(key) != null;
+        }
+    }
+
+    @Override
+    public JobInstance createJobInstance(String jobName, JobParameters jobParameters) {
+        JobHistory history = history(jobName);
+        String key = jobKeyGenerator.generateKey(jobParameters);
+        synchronized (history) {
+            Assert.state(history.instance(key) == null, "JobInstance must not already exist");
+            return history.addInstance(key);
+        }
+    }
+
+    @Override
+    public JobExecution createJobExecution(JobInstance jobInstance, JobParameters jobParameters, String jobConfigurationLocation) {
+        JobHistory history = history(jobInstance.getJobName());
+        synchronized (history) {
+            return history.addExecution(jobInstance, jobParameters, jobConfigurationLocation, new ExecutionContext());
+        }
+    }
+
+    /*
+        The same checks as SimpleJobRepository, against the executions still in memory
+     */
+    @Override
+    public JobExecution createJobExecution(String jobName, JobParameters jobParameters)
+            throws JobExecutionAlreadyRunningException, JobRestartException, JobInstanceAlreadyCompleteException {
+        JobHistory history = history(jobName);
+        String key = jobKeyGenerator.generateKey(jobParameters);
+        synchronized (history) {
+            JobInstance jobInstance = history.instance(key);
+            ExecutionContext executionContext = new ExecutionContext();
+            if (jobInstance == null) {
+                jobInstance = history.addInstance(key);
+            } else {
+                List<JobExecution> executions = history.executions(jobInstance);
+                for (JobExecution execution : executions) {
+                    if (execution.isRunning() || execution.isStopping()) {
+                        throw new JobExecutionAlreadyRunningException("A job execution for this job is already running: " + jobInstance);
+                    }
+                    BatchStatus status = execution.getStatus();
+                    if (status == BatchStatus.UNKNOWN) {
+                        throw new JobRestartException("Cannot restart job from UNKNOWN status. " + jobInstance);
+                    }
+                    if (!execution.getJobParameters().isEmpty() && (status == BatchStatus.COMPLETED || status == BatchStatus.ABANDONED)) {
+                        throw new JobInstanceAlreadyCompleteException(
+                                "A job instance already exists and is complete for parameters=" + jobParameters + ".");
+                    }
+                }
+                if (!executions.isEmpty()) {
+                    executionContext = executions.get(executions.size() - 1).getExecutionContext();
+                }
+            }
+            return history.addExecution(jobInstance, jobParameters, null, executionContext);
+        }
+    }
+
+    @Override
+    public void update(JobExecution jobExecution) {
+        Assert.notNull(jobExecution.getId(), "JobExecution must be already saved");
+        jobExecution.setLastUpdated(new Date());
+        jobExecution.incrementVersion();
+        JobHistory history = history(jobExecution.getJobInstance().getJobName());
+        boolean finished;
+        synchronized (history) {
+            finished = jobExecution.getEndTime() != null && history.finish(jobExecution);
+        }
+        if (finished && writeBehindExecutor != null && writeBehindTarget != null) {
+            writeBehindExecutor.execute(() -> writeBehind(jobExecution));
+        }
+    }
+
+    @Override
+    public void add(StepExecution stepExecution) {
+        Assert.notNull(stepExecution.getJobExecutionId(), "JobExecution must be saved already");
+        stepExecution.setId(ids.incrementAndGet());
+        stepExecution.incrementVersion();
+        stepExecution.setLastUpdated(new Date());
+    }
+
+    @Override
+    public void addAll(Collection<StepExecution> stepExecutions) {
+        for (StepExecution stepExecution : stepExecutions) {
+            add(stepExecution);
+        }
+    }
+
+    /*
+        Picks up a stop requested on the job execution, like SimpleJobRepository does from the database
+     */
+    @Override
+    public void update(StepExecution stepExecution) {
+        Assert.notNull(stepExecution.getId(), "StepExecution must already be saved");
+        stepExecution.setLastUpdated(new Date());
+        stepExecution.incrementVersion();
+        if (stepExecution.getJobExecution().isStopping()) {
+            stepExecution.setTerminateOnly();
+        }
+    }
+
+    @Override
+    public void updateExecutionContext(StepExecution stepExecution) {
+    }
+
+    @Override
+    public void updateExecutionContext(JobExecution jobExecution) {
+    }
+
+    @Override
+    public StepExecution getLastStepExecution(JobInstance jobInstance, String stepName) {
+        StepExecution latest = null;
+        for (JobExecution execution : executions(jobInstance)) {
+            for (StepExecution stepExecution : execution.getStepExecutions()) {
+                if (stepExecution.getStepName().equals(stepName)
+                        && (latest == null || latest.getStartTime().before(stepExecution.getStartTime())
+                        || latest.getStartTime().equals(stepExecution.getStartTime()) && latest.getId() < stepExecution.getId())) {
+                    latest = stepExecution;
+                }
+            }
+        }
+        return latest;
+    }
+
+    @Override
+    public int getStepExecutionCount(JobInstance jobInstance, String stepName) {
+        int count = 0;
+        for (JobExecution execution : executions(jobInstance)) {
+            for (StepExecution stepExecution : execution.getStepExecutions()) {
+                if (stepExecution.getStepName().equals(stepName)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public JobExecution getLastJobExecution(String jobName, JobParameters jobParameters) {
+        JobHistory history = history(jobName);
+        synchronized (history) {
+            JobInstance jobInstance = history.instance(jobKeyGenerator.generateKey(jobParameters));
+            if (jobInstance == null) {
+                return null;
+            }
+            List<JobExecution> executions = history.executions(jobInstance);
+            return executions.isEmpty() ? null : executions.get(executions.size() - 1);
+        }
+    }
+
+    private List<JobExecution> executions(JobInstance jobInstance) {
+        JobHistory history = history(jobInstance.getJobName());
+        synchronized (history) {
+            return new ArrayList<>(history.executions(jobInstance));
+        }
+    }
+
+    private JobHistory history(String jobName) {
+        return histories.computeIfAbsent(jobName, JobHistory::new);
+    }
+
+    /*
+        Copies a finished execution with its step executions into the target repository
+     */
+    private void writeBehind(JobExecution execution) {
+        String jobName = execution.getJobInstance().getJobName();
+        try {
+            JobExecution copy = writeBehindTarget.createJobExecution(jobName, execution.getJobParameters());
+            copy.setCreateTime(execution.getCreateTime());
+            copy.setStartTime(execution.getStartTime());
+            copy.setEndTime(execution.getEndTime());
+            copy.setStatus(execution.getStatus());
+            copy.setExitStatus(execution.getExitStatus());
+            copy.setExecutionContext(execution.getExecutionContext());
+            for (StepExecution stepExecution : execution.getStepExecutions()) {
+                StepExecution stepCopy = copy.createStepExecution(stepExecution.getStepName());
+                stepCopy.setStartTime(stepExecution.getStartTime());
+                stepCopy.setEndTime(stepExecution.getEndTime());
+                stepCopy.setStatus(stepExecution.getStatus());
+                stepCopy.setExitStatus(stepExecution.getExitStatus());
+                stepCopy.setReadCount(stepExecution.getReadCount());
+                stepCopy.setWriteCount(stepExecution.getWriteCount());
+                stepCopy.setFilterCount(stepExecution.getFilterCount());
+                stepCopy.setCommitCount(stepExecution.getCommitCount());
+                stepCopy.setRollbackCount(stepExecution.getRollbackCount());
+                stepCopy.setReadSkipCount(stepExecution.getReadSkipCount());
+                stepCopy.setProcessSkipCount(stepExecution.getProcessSkipCount());
+                stepCopy.setWriteSkipCount(stepExecution.getWriteSkipCount());
+                stepCopy.setExecutionContext(stepExecution.getExecutionContext());
+                writeBehindTarget.add(stepCopy);
+            }
+            writeBehindTarget.updateExecutionContext(copy);
+            writeBehindTarget.update(copy);
+        } catch (Exception e) {
+            log.warn("[{}] write-behind of job execution {} failed - {}", jobName, execution.getId(), e.getMessage());
+        }
+    }
+
+    /*
+        The instances and executions of one job, guarded by its own monitor
+     */
+    private class JobHistory {
+        private final String jobName;
+
+        private final Map<String, JobInstance> instancesByKey = new HashMap<>();
+
+        private final Map<Long, String> keysById = new HashMap<>();
+
+        private final Map<Long, List<JobExecution>> executionsByInstance = new HashMap<>();
+
+        // finished executions, oldest first
+        private final Deque<JobExecution> finished = new ArrayDeque<>();
+
+        private final Set<Long> running = new HashSet<>();
+
+        JobHistory(String jobName) {
+            this.jobName = jobName;
+        }
+
+        JobInstance instance(String key) {
+            return instancesByKey.get(key);
+        }
+
+        List<JobExecution> executions(JobInstance jobInstance) {
+            List<JobExecution> executions = executionsByInstance.get(jobInstance.getId());
+            return executions != null ? executions : new ArrayList<>();
+        }
+
+        JobInstance addInstance(String key) {
+            JobInstance jobInstance = new JobInstance(ids.incrementAndGet(), jobName);
+            jobInstance.incrementVersion();
+            instancesByKey.put(key, jobInstance);
+            keysById.put(jobInstance.getId(), key);
+            executionsByInstance.put(jobInstance.getId(), new ArrayList<>());
+            return jobInstance;
+        }
+
+        JobExecution addExecution(JobInstance jobInstance, JobParameters jobParameters, String jobConfigurationLocation,
+                                  ExecutionContext executionContext) {
+            JobExecution execution = new JobExecution(jobInstance, ids.incrementAndGet(), jobParameters, jobConfigurationLocation);
+            execution.setExecutionContext(executionContext);
+            execution.setLastUpdated(new Date());
+            execution.incrementVersion();
+            executionsByInstance.computeIfAbsent(jobInstance.getId(), id -> new ArrayList<>()).add(execution);
+            running.add(execution.getId());
+            return execution;
+        }
+
+        /*
+            Returns false when the execution was finished already, evicts the oldest finished executions beyond the limit
+         */
+        boolean finish(JobExecution execution) {
+            if (!running.remove(execution.getId())) {
+                return false;
+            }
+            finished.add(execution);
+            while (finished.size() > maxExecutionsPerJob) {
+                evict(finished.poll());
+            }
+            return true;
+        }
+
+        private void evict(JobExecution execution) {
+            Long instanceId = execution.getJobInstance().getId();
+            List<JobExecution> executions = executionsByInstance.get(instanceId);
+            for (Iterator<JobExecution> iterator = executions.iterator(); iterator.hasNext(); ) {
+                if (iterator.next() == execution) {
+                    iterator.remove();
+                }
+            }
+            if (executions.isEmpty()) {
+                executionsByInstance.remove(instanceId);
+                instancesByKey.remove(keysById.remove(instanceId));
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.demo.batch;
+
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ItemReadListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.ItemProcessor;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/*
+    CachingEnrichmentProcessor enriches every item with a value looked up by a key of the item, e.g. a row of a reference table
+    Lookups go through a LookupCache, and a chunk costs at most one loader call: the keys are collected while the chunk
+    is read, and the first item processed loads the keys of the whole chunk that are not cached, e.g. with
+
+        keys -> namedParameterJdbcTemplate.query("SELECT code, name FROM country WHERE code IN (:codes)",
+                Collections.singletonMap("codes", keys), rs -> { ... })
+
+    As the processor of a step it is registered as ItemReadListener and ChunkListener by the step builder,
+    inside a CompositeItemProcessor register it with listener(...) and put it first, afterRead receives the read items
+    Without a step context, e.g. on remote chunking workers, and for items not read in the chunk it looks up per item
+ */
+public class CachingEnrichmentProcessor<I, K, V, O> implements ItemProcessor<I, O>, ItemReadListener<I>, ChunkListener {
+    private final LookupCache<K, V> cache;
+
+    private final Function<? super I, ? extends K> keyExtractor;
+
+    private final Function<Set<K>, Map<K, V>> loader;
+
+    private final BiFunction<? super I, ? super V, ? extends O> enricher;
+
+    private final Map<Long, ChunkKeys<K, V>> chunks = new ConcurrentHashMap<>();
+
+    /*
+        keyExtractor picks the lookup key of an item, loader loads the values of a set of keys,
+        enricher combines an item with its value, which is null when the loader did not find the key
+     */
+    public CachingEnrichmentProcessor(LookupCache<K, V> cache, Function<? super I, ? extends K> keyExtractor,
+                                      Function<Set<K>, Map<K, V>> loader, BiFunction<? super I, ? super V, ? extends O> enricher) {
+        this.cache = cache;
+        this.keyExtractor = keyExtractor;
+        this.loader = loader;
+        this.enricher = enricher;
+    }
+
+    @Override
+    public void beforeRead() {
+    }
+
+    @Override
+    public void afterRead(I item) {
+        final Long stepExecutionId = stepExecutionId();
+        if (stepExecutionId != null) {
+            chunks.computeIfAbsent(stepExecutionId, id -> new ChunkKeys<>()).add(keyExtractor.apply(item));
+        }
+    }
+
+    @Override
+    public void onReadError(Exception ex) {
+    }
+
+    @Override
+    public O process(I item) {
+        final K key = keyExtractor.apply(item);
+        final Long stepExecutionId = stepExecutionId();
+        final ChunkKeys<K, V> chunk = stepExecutionId == null ? null : chunks.get(stepExecutionId);
+        if (chunk != null) {
+            synchronized (chunk) {
+                if (!chunk.pending.isEmpty()) {
+                    chunk.values.putAll(cache.getAll(chunk.pending, loader));
+                    chunk.pending.clear();
+                }
+                if (chunk.values.containsKey(key)) {
+                    return enricher.apply(item, chunk.values.get(key));
+                }
+            }
+        }
+        return enricher.apply(item, cache.getAll(Collections.singleton(key), loader).get(key));
+    }
+
+    @Override
+    public void beforeChunk(ChunkContext context) {
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+        chunks.remove(context.getStepContext().getStepExecution().getId());
+    }
+
+    @Override
+    public void afterChunkError(ChunkContext context) {
+        chunks.remove(context.getStepContext().getStepExecution().getId());
+    }
+
+    public LookupCache<K, V> getCache() {
+        return cache;
+    }
+
+    private static Long stepExecutionId() {
+        final StepContext context = StepSynchronizationManager.getContext();
+        return context == null ? null : context.getStepExecution().getId();
+    }
+
+    /*
+        The keys read in the current chunk of a step and, once loaded, their values
+        Async processor threads of the chunk wait for the one that loads
+     */
+    private static class ChunkKeys<K, V> {
+        final Set<K> pending = new LinkedHashSet<>();
+        final Map<K, V> values = new HashMap<>();
+
+        synchronized void add(K key) {
+            pending.add(key);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.demo.batch;
+
+import org.springframework.batch.item.ItemProcessor;
+
+import java.util.Collections;
+import java.util.List;
+
+/*
+    ChunkItemProcessor transforms all items of a chunk in one call, so lookups, external calls and string work
+    can be done for the whole chunk at once. The result holds one output per item in the same order,
+    a null output filters its item like a null returned by ItemProcessor.process
+
+    The step calls it through ChunkItemProcessorAdapter. When the call for the chunk fails, the items of the chunk
+    are processed one by one with process(item), so skip and retry still apply to the failed item only
+    processChunk may therefore see an item twice and has to be free of side effects or idempotent
+ */
+public interface ChunkItemProcessor<I, O> extends ItemProcessor<I, O> {
+    List<O> processChunk(List<? extends I> items) throws Exception;
+
+    @Override
+    default O process(I item) throws Exception {
+        return processChunk(Collections.singletonList(item)).get(0);
+    }
+}
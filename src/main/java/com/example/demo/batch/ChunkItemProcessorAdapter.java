@@ -0,0 +1,118 @@
+package com.example.demo.batch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ItemReadListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+    ChunkItemProcessorAdapter hands the whole chunk to a ChunkItemProcessor, while the step keeps processing item by item
+    A chunk is read completely before it is processed, so the items are collected as they are read, the first process
+    call of the chunk transforms all of them with one processChunk call and every call returns the output of its item
+
+    Process listeners, filter counts, skip and retry keep working per item. If processChunk fails, every item
+    of the chunk goes through ChunkItemProcessor.process on its own, so only the failing item fails or is skipped
+    Register it as ItemReadListener and ChunkListener when it is nested in a CompositeItemProcessor, it has to be
+    the first processor. Without a step context, e.g. on remote chunking workers, items are processed one by one
+ */
+public class ChunkItemProcessorAdapter<I, O> implements ItemProcessor<I, O>, ItemReadListener<I>, ChunkListener {
+    private static final Logger log = LoggerFactory.getLogger(ChunkItemProcessorAdapter.class);
+
+    private final ChunkItemProcessor<I, O> delegate;
+
+    private final Map<Long, PendingChunk<I, O>> chunks = new ConcurrentHashMap<>();
+
+    public ChunkItemProcessorAdapter(ChunkItemProcessor<I, O> delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void beforeRead() {
+    }
+
+    @Override
+    public void afterRead(I item) {
+        final Long stepExecutionId = stepExecutionId();
+        if (stepExecutionId != null) {
+            chunks.computeIfAbsent(stepExecutionId, id -> new PendingChunk<>()).add(item);
+        }
+    }
+
+    @Override
+    public void onReadError(Exception ex) {
+    }
+
+    @Override
+    public O process(I item) throws Exception {
+        final Long stepExecutionId = stepExecutionId();
+        final PendingChunk<I, O> chunk = stepExecutionId == null ? null : chunks.get(stepExecutionId);
+        if (chunk != null) {
+            synchronized (chunk) {
+                if (!chunk.items.isEmpty()) {
+                    transform(chunk);
+                }
+                // processed again on retry or after a failed chunk call, processChunk is not repeated for a single item
+                if (chunk.outputs.containsKey(item)) {
+                    return chunk.outputs.get(item);
+                }
+            }
+        }
+        return delegate.process(item);
+    }
+
+    private void transform(PendingChunk<I, O> chunk) {
+        try {
+            final List<O> outputs = delegate.processChunk(chunk.items);
+            Assert.state(outputs.size() == chunk.items.size(),
+                    "processChunk returned " + outputs.size() + " outputs for " + chunk.items.size() + " items");
+            for (int i = 0; i < outputs.size(); i++) {
+                chunk.outputs.put(chunk.items.get(i), outputs.get(i));
+            }
+        } catch (Exception e) {
+            log.debug("Processing {} items at once failed, processing them one by one - {}", chunk.items.size(), e.getMessage());
+        }
+        chunk.items.clear();
+    }
+
+    @Override
+    public void beforeChunk(ChunkContext context) {
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+        chunks.remove(context.getStepContext().getStepExecution().getId());
+    }
+
+    @Override
+    public void afterChunkError(ChunkContext context) {
+        chunks.remove(context.getStepContext().getStepExecution().getId());
+    }
+
+    private static Long stepExecutionId() {
+        final StepContext context = StepSynchronizationManager.getContext();
+        return context == null ? null : context.getStepExecution().getId();
+    }
+
+    /*
+        The items read for the current chunk of a step until they are transformed, then the output of every item
+     */
+    private static class PendingChunk<I, O> {
+        final List<I> items = new ArrayList<>();
+        final Map<I, O> outputs = new IdentityHashMap<>();
+
+        synchronized void add(I item) {
+            items.add(item);
+        }
+    }
+}
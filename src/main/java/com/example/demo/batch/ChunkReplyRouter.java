@@ -0,0 +1,50 @@
+package com.example.demo.batch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.listener.StepExecutionListenerSupport;
+import org.springframework.batch.integration.chunk.ChunkResponse;
+import org.springframework.integration.channel.QueueChannel;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.PollableChannel;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+    ChunkReplyRouter hands every ChunkResponse to the reply queue of the job execution it belongs to
+    ChunkMessageChannelItemWriter fails on replies of another job execution, so with one shared reply channel
+    a scheduled import and a manual one could not run side by side
+
+    Registered as a listener of the manager step, the queue of an execution is dropped once its step is done,
+    later replies are logged and discarded
+ */
+public class ChunkReplyRouter extends StepExecutionListenerSupport implements MessageHandler {
+    private static final Logger log = LoggerFactory.getLogger(ChunkReplyRouter.class);
+
+    private final Map<Long, QueueChannel> replies = new ConcurrentHashMap<>();
+
+    public PollableChannel replyChannel(long jobExecutionId) {
+        return replies.computeIfAbsent(jobExecutionId, id -> new QueueChannel());
+    }
+
+    @Override
+    public void handleMessage(Message<?> message) {
+        ChunkResponse response = (ChunkResponse) message.getPayload();
+        QueueChannel channel = replies.get(response.getJobId());
+        if (channel == null) {
+            log.warn("Discarded a reply for job execution {} which is no longer waiting - {}", response.getJobId(), response);
+            return;
+        }
+        channel.send(message);
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        replies.remove(stepExecution.getJobExecutionId());
+        return null;
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.demo.batch;
+
+import org.springframework.batch.item.database.ItemPreparedStatementSetter;
+import org.springframework.jdbc.core.SqlTypeValue;
+import org.springframework.jdbc.core.StatementCreatorUtils;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.function.Function;
+
+/*
+    CompiledItemPreparedStatementSetter binds the given properties of an item to the positional ? parameters in order
+    The accessors are resolved once through CompiledPropertyAccessors, binding an item allocates nothing
+ */
+public class CompiledItemPreparedStatementSetter<T> implements ItemPreparedStatementSetter<T> {
+    private final Function<Object, Object>[] accessors;
+
+    public CompiledItemPreparedStatementSetter(Class<T> type, String... properties) {
+        this.accessors = newAccessors(properties.length);
+        for (int i = 0; i < properties.length; i++) {
+            this.accessors[i] = CompiledPropertyAccessors.forProperty(type, properties[i]);
+        }
+    }
+
+    // a generic array cannot be created, an array of Function<?, ?> only ever holds the accessors assigned above
+    @SuppressWarnings("unchecked")
+    private static Function<Object, Object>[] newAccessors(int length) {
+        return (Function<Object, Object>[]) new Function<?, ?>[length];
+    }
+
+    @Override
+    public void setValues(T item, PreparedStatement ps) throws SQLException {
+        for (int i = 0; i < accessors.length; i++) {
+            StatementCreatorUtils.setParameterValue(ps, i + 1, SqlTypeValue.TYPE_UNKNOWN, accessors[i].apply(item));
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.demo.batch;
+
+import org.springframework.batch.item.database.ItemSqlParameterSourceProvider;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.util.Map;
+import java.util.function.Function;
+
+/*
+    CompiledItemSqlParameterSourceProvider is a drop in replacement for BeanPropertyItemSqlParameterSourceProvider
+    for named parameter SQL. Values are read through the compiled accessors of the item class instead of a BeanWrapper
+ */
+public class CompiledItemSqlParameterSourceProvider<T> implements ItemSqlParameterSourceProvider<T> {
+
+    @Override
+    public SqlParameterSource createSqlParameterSource(T item) {
+        return new AccessorSqlParameterSource(item, CompiledPropertyAccessors.forClass(item.getClass()));
+    }
+
+    // implements the interface directly, AbstractSqlParameterSource would allocate its type maps per item
+    private static class AccessorSqlParameterSource implements SqlParameterSource {
+        private final Object item;
+
+        private final Map<String, Function<Object, Object>> accessors;
+
+        AccessorSqlParameterSource(Object item, Map<String, Function<Object, Object>> accessors) {
+            this.item = item;
+            this.accessors = accessors;
+        }
+
+        @Override
+        public boolean hasValue(String paramName) {
+            return accessors.containsKey(paramName);
+        }
+
+        @Override
+        public Object getValue(String paramName) {
+            final Function<Object, Object> accessor = accessors.get(paramName);
+            if (accessor == null) {
+                throw new IllegalArgumentException("No property '" + paramName + "' on " + item.getClass().getName());
+            }
+            return accessor.apply(item);
+        }
+
+        @Override
+        public String[] getParameterNames() {
+            return accessors.keySet().toArray(new String[0]);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.demo.batch;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/*
+    CompiledPropertyAccessors turns the getters of a class into Function instances once per class
+    The functions are generated with LambdaMetafactory, so reading a property costs a plain interface call
+    instead of the BeanWrapper introspection that BeanPropertySqlParameterSource performs per item
+ */
+public final class CompiledPropertyAccessors {
+    private static final ClassValue<Map<String, Function<Object, Object>>> ACCESSORS = new ClassValue<Map<String, Function<Object, Object>>>() {
+        @Override
+        protected Map<String, Function<Object, Object>> computeValue(Class<?> type) {
+            return compile(type);
+        }
+    };
+
+    private CompiledPropertyAccessors() {
+    }
+
+    /*
+        All readable properties of the class by property name, the map is immutable and shared
+     */
+    public static Map<String, Function<Object, Object>> forClass(Class<?> type) {
+        return ACCESSORS.get(type);
+    }
+
+    public static Function<Object, Object> forProperty(Class<?> type, String property) {
+        final Function<Object, Object> accessor = forClass(type).get(property);
+        if (accessor == null) {
+            throw new IllegalArgumentException("No readable property '" + property + "' on " + type.getName());
+        }
+        return accessor;
+    }
+
+    private static Map<String, Function<Object, Object>> compile(Class<?> type) {
+        final Map<String, Function<Object, Object>> accessors = new HashMap<>();
+        try {
+            for (PropertyDescriptor descriptor : Introspector.getBeanInfo(type, Object.class).getPropertyDescriptors()) {
+                final Method getter = descriptor.getReadMethod();
+                if (getter != null) {
+                    accessors.put(descriptor.getName(), compile(getter));
+                }
+            }
+        } catch (IntrospectionException e) {
+            throw new IllegalStateException("Failed to introspect " + type.getName(), e);
+        }
+        return Collections.unmodifiableMap(accessors);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Function<Object, Object> compile(Method getter) {
+        final MethodHandles.Lookup lookup = MethodHandles.lookup();
+        final MethodHandle handle;
+        try {
+            handle = lookup.unreflect(getter);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Getter " + getter + " is not accessible", e);
+        }
+        try {
+            final CallSite site = LambdaMetafactory.metafactory(lookup, "apply",
+                    MethodType.methodType(Function.class),
+                    MethodType.methodType(Object.class, Object.class),
+                    handle,
+                    handle.type().wrap());
+            return (Function<Object, Object>) site.getTarget().invokeExact();
+        } catch (Throwable e) {
+            // LambdaMetafactory needs a getter visible from this class, fall back to invoking the handle
+            final MethodHandle generic = handle.asType(MethodType.methodType(Object.class, Object.class));
+            return item -> {
+                try {
+                    return generic.invokeExact(item);
+                } catch (RuntimeException | Error ex) {
+                    throw ex;
+                } catch (Throwable ex) {
+                    throw new IllegalStateException(ex);
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.demo.batch;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.quartz.QuartzDataSource;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/*
+    batch.datasource.separate-pools gives business writes and the Quartz job store a connection pool each,
+    so chunk commits on people cannot starve Quartz check-ins. batch.datasource.separate-metadata-pool
+    also moves the Spring Batch metadata to a pool of its own
+
+    business  the primary DataSource, sized by spring.datasource.hikari.*, used by the item writers and,
+              without a metadata pool, by the job repository and explorer
+    metadata  @MetadataDataSource, sized by batch.datasource.metadata.*, used by the job repository and explorer
+    quartz    @QuartzDataSource, sized by batch.datasource.quartz.*, used by the Quartz job store and the job execution guard
+    All of them connect with spring.datasource.* unless their own jdbc-url, username and password are set
+
+    The metadata stays on the business pool by default, so the step execution and ExecutionContext updates of a chunk
+    commit in the chunk's transaction, and a restart continues exactly after the last written chunk
+    With a metadata pool they commit on their own connection after the items: a crash between the two commits
+    makes a restart read that chunk again, or skip it for writers that are not idempotent
+    Only use it when the writers are idempotent, e.g. the incremental import, and restart precision matters less
+    than keeping repository updates out of the business pool
+ */
+@Configuration
+@ConditionalOnProperty(name = "batch.datasource.separate-pools", havingValue = "true")
+public class DataSourceConfiguration {
+    @Bean
+    @Primary
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties properties) {
+        return pool(properties, "business");
+    }
+
+    @Bean
+    @MetadataDataSource
+    @ConditionalOnProperty(name = "batch.datasource.separate-metadata-pool", havingValue = "true")
+    @ConfigurationProperties("batch.datasource.metadata")
+    public HikariDataSource metadataDataSource(DataSourceProperties properties) {
+        return pool(properties, "metadata");
+    }
+
+    @Bean
+    @QuartzDataSource
+    @ConfigurationProperties("batch.datasource.quartz")
+    public HikariDataSource quartzDataSource(DataSourceProperties properties) {
+        return pool(properties, "quartz");
+    }
+
+    /*
+        The pool metrics (hikaricp.connections.*, jdbc.connections.*) are bound by the actuator per pool name and bean name
+     */
+    private HikariDataSource pool(DataSourceProperties properties, String poolName) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName(poolName);
+        return dataSource;
+    }
+}
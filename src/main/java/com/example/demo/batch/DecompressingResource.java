@@ -0,0 +1,115 @@
+package com.example.demo.batch;
+
+import com.github.luben.zstd.ZstdInputStream;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+/*
+    DecompressingResource streams a compressed resource decompressed, so a CSV drop never has to be unpacked to disk
+    Concatenated gzip members and zstd frames are read as one stream
+
+    Readers keep checkpointing by record count: on restart FlatFileItemReader skips the read lines without mapping them,
+    so restart costs one decompression of the skipped part and no parsing
+    There is no file behind it, memory mapped readers need the plain input
+ */
+public class DecompressingResource extends AbstractResource {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    public enum Compression {
+        AUTO, NONE, GZIP, ZSTD;
+
+        public static Compression of(String name) {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private final Resource delegate;
+
+    private final Compression compression;
+
+    public DecompressingResource(Resource delegate, Compression compression) {
+        this.delegate = delegate;
+        this.compression = compression;
+    }
+
+    /*
+        The compression of resource, detected from its magic number when AUTO, NONE for a missing resource
+     */
+    public static Compression detect(Resource resource, Compression compression) throws IOException {
+        if (compression != Compression.AUTO || !resource.exists()) {
+            return compression == Compression.AUTO ? Compression.NONE : compression;
+        }
+        try (InputStream in = new BufferedInputStream(resource.getInputStream(), 4)) {
+            return detect(in);
+        }
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        InputStream in = new BufferedInputStream(delegate.getInputStream(), BUFFER_SIZE);
+        try {
+            switch (compression == Compression.AUTO ? detect(in) : compression) {
+                case GZIP:
+                    return new GZIPInputStream(in, BUFFER_SIZE);
+                case ZSTD:
+                    return new BufferedInputStream(new ZstdInputStream(in), BUFFER_SIZE);
+                default:
+                    return in;
+            }
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /*
+        Peeks at the first bytes, gzip starts with 1f 8b and a zstd frame with 28 b5 2f fd
+     */
+    private static Compression detect(InputStream in) throws IOException {
+        in.mark(4);
+        byte[] magic = new byte[4];
+        int read = 0;
+        for (int n; read < magic.length && (n = in.read(magic, read, magic.length - read)) != -1; ) {
+            read += n;
+        }
+        in.reset();
+        if (read >= 2 && magic[0] == (byte) 0x1f && magic[1] == (byte) 0x8b) {
+            return Compression.GZIP;
+        }
+        if (read == 4 && magic[0] == (byte) 0x28 && magic[1] == (byte) 0xb5 && magic[2] == (byte) 0x2f && magic[3] == (byte) 0xfd) {
+            return Compression.ZSTD;
+        }
+        return Compression.NONE;
+    }
+
+    @Override
+    public boolean exists() {
+        return delegate.exists();
+    }
+
+    @Override
+    public boolean isReadable() {
+        return delegate.isReadable();
+    }
+
+    @Override
+    public long lastModified() throws IOException {
+        return delegate.lastModified();
+    }
+
+    @Override
+    public String getFilename() {
+        return delegate.getFilename();
+    }
+
+    @Override
+    public String getDescription() {
+        return "decompressed " + delegate.getDescription();
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.demo.batch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.listener.StepExecutionListenerSupport;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/*
+    FileThroughputListener logs one line per file when a MultiFilePartitioner worker step ends:
+    status, written items, items per second and the read rate of the file in MB/s
+    The file size only measures an execution that read the whole file, completed from its first record,
+    a restarted, appended or failed file reports its items per second and no MB/s
+    Register it after ImportWatermarkListener, the read count an appended file starts from is set by its beforeStep
+ */
+public class FileThroughputListener extends StepExecutionListenerSupport {
+    private static final Logger log = LoggerFactory.getLogger(FileThroughputListener.class);
+
+    private final String readCountKey;
+
+    // the reader's read count when a step execution started, by step execution id
+    private final Map<Long, Integer> startReadCounts = new ConcurrentHashMap<>();
+
+    /*
+        readerName is the name of the step's reader, its read count covers the records of earlier executions too
+     */
+    public FileThroughputListener(String readerName) {
+        this.readCountKey = readerName + ".read.count";
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        startReadCounts.put(stepExecution.getId(), stepExecution.getExecutionContext().getInt(readCountKey, 0));
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        final String file = stepExecution.getExecutionContext().getString(MultiFilePartitioner.FILE_KEY, null);
+        if (file == null) {
+            startReadCounts.remove(stepExecution.getId());
+            return null;
+        }
+        final long elapsedMillis = Math.max(1, System.currentTimeMillis() - stepExecution.getStartTime().getTime());
+        final Double megabytesPerSecond = megabytesPerSecond(stepExecution, elapsedMillis);
+        startReadCounts.remove(stepExecution.getId());
+        log.info("[{}] {} {}: {} items written in {} ms ({} items/s, {} MB/s)",
+                stepExecution.getJobExecution().getJobInstance().getJobName(), file, stepExecution.getStatus(),
+                stepExecution.getWriteCount(), elapsedMillis,
+                stepExecution.getWriteCount() * TimeUnit.SECONDS.toMillis(1) / elapsedMillis,
+                megabytesPerSecond != null ? String.format("%.1f", megabytesPerSecond) : "-");
+        return null;
+    }
+
+    /*
+        The file size over the elapsed time, null unless the execution started at the first record and completed
+     */
+    Double megabytesPerSecond(StepExecution stepExecution, long elapsedMillis) {
+        final Integer startReadCount = startReadCounts.get(stepExecution.getId());
+        final long fileSize = stepExecution.getExecutionContext().getLong(MultiFilePartitioner.FILE_SIZE_KEY, 0);
+        if (startReadCount == null || startReadCount != 0 || stepExecution.getStatus() != BatchStatus.COMPLETED || fileSize == 0) {
+            return null;
+        }
+        return fileSize / 1024.0 / 1024.0 * 1000 / elapsedMillis;
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.demo.batch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.listener.StepExecutionListenerSupport;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.core.io.Resource;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+/*
+    ImportWatermarkListener remembers in import_watermark how far every input file has been imported and lets the reader
+    of the step start from there: the size and the modification time of the file, and the length, the CRC32
+    and the record count of its content up to the last complete line
+
+    unchanged size and modification time   the reader opens the file at its end, no record is read
+    content starts with the imported part  the file was appended to, the reader starts after the imported records
+    anything else                          the file is read again, IncrementalPersonItemWriter drops the unchanged rows
+
+    The start is handed to the reader through its own restart state in the step ExecutionContext, so it works
+    for any AbstractItemCountingItemStreamItemReader. A restarted step resumes from its restart state instead
+    The watermark is saved after the step completed, a crash in between only means the file is compared again
+ */
+public class ImportWatermarkListener extends StepExecutionListenerSupport {
+    private static final Logger log = LoggerFactory.getLogger(ImportWatermarkListener.class);
+
+    private static final String WATERMARK_PREFIX = "watermark.";
+    private static final String FILE_KEY = WATERMARK_PREFIX + "file";
+    private static final String FILE_SIZE_KEY = WATERMARK_PREFIX + "fileSize";
+    private static final String LAST_MODIFIED_KEY = WATERMARK_PREFIX + "lastModified";
+    private static final String CONTENT_LENGTH_KEY = WATERMARK_PREFIX + "contentLength";
+    private static final String CONTENT_CRC_KEY = WATERMARK_PREFIX + "contentCrc";
+    private static final String RECORD_COUNT_KEY = WATERMARK_PREFIX + "recordCount";
+
+    private static final String SELECT = "SELECT file_size, last_modified, content_length, content_crc, record_count FROM import_watermark WHERE file = ?";
+    private static final String INSERT = "INSERT INTO import_watermark (file_size, last_modified, content_length, content_crc, record_count, file) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE = "UPDATE import_watermark SET file_size = ?, last_modified = ?, content_length = ?, content_crc = ?, record_count = ? WHERE file = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final String readCountKey;
+
+    private final String readCountMaxKey;
+
+    private final Function<StepExecution, Resource> input;
+
+    private final Function<Resource, Resource> decompressed;
+
+    /*
+        readerName is the name of the step's reader, input picks the file of a step execution
+        and decompressed wraps it the way the reader reads it
+     */
+    public ImportWatermarkListener(DataSource dataSource, String readerName,
+                                   Function<StepExecution, Resource> input, Function<Resource, Resource> decompressed) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.readCountKey = readerName + ".read.count";
+        this.readCountMaxKey = readerName + ".read.count.max";
+        this.input = input;
+        this.decompressed = decompressed;
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        final ExecutionContext context = stepExecution.getExecutionContext();
+        if (context.containsKey(readCountKey)) {
+            return;
+        }
+        final Resource resource = input.apply(stepExecution);
+        try {
+            final String file = resource.getURL().toExternalForm();
+            final Watermark previous = find(file);
+            final long fileSize = resource.contentLength();
+            final long lastModified = resource.lastModified();
+
+            Watermark current;
+            int startRecord = 0;
+            int maxRecords = Integer.MAX_VALUE;
+            if (previous != null && previous.fileSize == fileSize && previous.lastModified == lastModified) {
+                current = previous;
+                startRecord = previous.recordCount;
+                maxRecords = previous.recordCount;
+                log.info("{} is unchanged, {} records imported before", file, previous.recordCount);
+            } else {
+                final long prefixLength = previous == null ? -1 : previous.contentLength;
+                final ContentScan scan = scan(decompressed.apply(resource), prefixLength);
+                current = new Watermark(fileSize, lastModified, scan.length, scan.crc, scan.records);
+                if (previous != null && scan.prefixCrc == previous.contentCrc) {
+                    startRecord = previous.recordCount;
+                    log.info("{} was appended to, importing from record {}", file, startRecord);
+                }
+            }
+            // the reader resumes from here as if the step was restarted
+            context.putInt(readCountKey, startRecord);
+            context.putInt(readCountMaxKey, maxRecords);
+            context.putString(FILE_KEY, file);
+            current.putTo(context);
+        } catch (IOException e) {
+            throw new ItemStreamException("Failed to read the watermark of " + resource, e);
+        }
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        final ExecutionContext context = stepExecution.getExecutionContext();
+        if (stepExecution.getStatus() == BatchStatus.COMPLETED && context.containsKey(FILE_KEY)) {
+            save(context.getString(FILE_KEY), Watermark.from(context));
+        }
+        return null;
+    }
+
+    private Watermark find(String file) {
+        try {
+            return jdbcTemplate.queryForObject(SELECT, (rs, rowNum) ->
+                    new Watermark(rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getLong(4), rs.getInt(5)), file);
+        } catch (EmptyResultDataAccessException e) {
+            return null;
+        }
+    }
+
+    private void save(String file, Watermark watermark) {
+        final Object[] args = {watermark.fileSize, watermark.lastModified, watermark.contentLength,
+                watermark.contentCrc, watermark.recordCount, file};
+        if (jdbcTemplate.update(UPDATE, args) == 0) {
+            jdbcTemplate.update(INSERT, args);
+        }
+    }
+
+    /*
+        One pass over the content: CRC32, length and line count up to the last line feed, and the CRC32 of the first
+        prefixLength bytes. A trailing line without a line feed is left out, it may still be being written
+     */
+    private static ContentScan scan(Resource resource, long prefixLength) throws IOException {
+        final CRC32 crc = new CRC32();
+        final ContentScan scan = new ContentScan();
+        final byte[] buffer = new byte[64 * 1024];
+        long position = 0;
+        int lines = 0;
+        try (InputStream in = resource.getInputStream()) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                int lastLineFeed = -1;
+                for (int i = 0; i < read; i++) {
+                    if (buffer[i] == '\n') {
+                        lines++;
+                        lastLineFeed = i;
+                    }
+                }
+                // the CRC is taken at the end of the prefix and after the last line feed, whichever comes first
+                final int prefixEnd = prefixLength >= position && prefixLength <= position + read ? (int) (prefixLength - position) : -1;
+                int done = 0;
+                if (prefixEnd >= 0 && prefixEnd <= lastLineFeed + 1) {
+                    crc.update(buffer, 0, prefixEnd);
+                    done = prefixEnd;
+                    scan.prefixCrc = crc.getValue();
+                }
+                if (lastLineFeed >= 0) {
+                    crc.update(buffer, done, lastLineFeed + 1 - done);
+                    done = lastLineFeed + 1;
+                    scan.crc = crc.getValue();
+                    scan.length = position + done;
+                    scan.records = lines;
+                }
+                if (prefixEnd > done) {
+                    crc.update(buffer, done, prefixEnd - done);
+                    done = prefixEnd;
+                    scan.prefixCrc = crc.getValue();
+                }
+                crc.update(buffer, done, read - done);
+                position += read;
+            }
+        }
+        if (prefixLength == 0) {
+            scan.prefixCrc = 0;
+        }
+        return scan;
+    }
+
+    private static class ContentScan {
+        long length;
+        long crc;
+        int records;
+        // -1 until the content reached the prefix length
+        long prefixCrc = -1;
+    }
+
+    private static class Watermark {
+        final long fileSize;
+        final long lastModified;
+        final long contentLength;
+        final long contentCrc;
+        final int recordCount;
+
+        Watermark(long fileSize, long lastModified, long contentLength, long contentCrc, int recordCount) {
+            this.fileSize = fileSize;
+            this.lastModified = lastModified;
+            this.contentLength = contentLength;
+            this.contentCrc = contentCrc;
+            this.recordCount = recordCount;
+        }
+
+        static Watermark from(ExecutionContext context) {
+            return new Watermark(context.getLong(FILE_SIZE_KEY), context.getLong(LAST_MODIFIED_KEY),
+                    context.getLong(CONTENT_LENGTH_KEY), context.getLong(CONTENT_CRC_KEY), context.getInt(RECORD_COUNT_KEY));
+        }
+
+        void putTo(ExecutionContext context) {
+            context.putLong(FILE_SIZE_KEY, fileSize);
+            context.putLong(LAST_MODIFIED_KEY, lastModified);
+            context.putLong(CONTENT_LENGTH_KEY, contentLength);
+            context.putLong(CONTENT_CRC_KEY, contentCrc);
+            context.putInt(RECORD_COUNT_KEY, recordCount);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.demo.batch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+    ItemProgressReporter replaces per item logging with an aggregated progress line
+    Written items are counted once per chunk, a line with the totals and the items per second is logged
+    every N items or every T seconds, whichever comes first, and a summary is logged when the job ends
+
+    When INFO is disabled or both intervals are 0 the listener only adds to a counter, so it stays allocation free
+    Register it on the job and on every step that writes, worker steps of a partitioned step share the counters
+    The counters are kept per job execution, so overlapping executions of one job, or of several jobs
+    sharing the listener, are reported separately
+ */
+public class ItemProgressReporter implements JobExecutionListener, ItemWriteListener<Object> {
+    private static final Logger log = LoggerFactory.getLogger(ItemProgressReporter.class);
+
+    private final long everyItems;
+
+    private final long everyNanos;
+
+    private final Map<Long, Progress> progress = new ConcurrentHashMap<>();
+
+    public ItemProgressReporter(long everyItems, long everySeconds) {
+        this.everyItems = everyItems > 0 ? everyItems : Long.MAX_VALUE;
+        this.everyNanos = everySeconds > 0 ? TimeUnit.SECONDS.toNanos(everySeconds) : Long.MAX_VALUE;
+    }
+
+    @Override
+    public void beforeJob(JobExecution jobExecution) {
+        progress.put(jobExecution.getId(), new Progress(jobExecution.getJobInstance().getJobName()));
+    }
+
+    @Override
+    public void afterJob(JobExecution jobExecution) {
+        final Progress jobProgress = progress.remove(jobExecution.getId());
+        if (jobProgress == null) {
+            return;
+        }
+        final long total = jobProgress.written.get();
+        final long elapsedNanos = System.nanoTime() - jobProgress.startNanos;
+        log.info("[{}] {} items written in {} ms ({} items/s)",
+                jobProgress.jobName, total,
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), perSecond(total, elapsedNanos));
+    }
+
+    @Override
+    public void beforeWrite(List<?> items) {
+    }
+
+    @Override
+    public void afterWrite(List<?> items) {
+        final StepContext context = StepSynchronizationManager.getContext();
+        if (context == null) {
+            return;
+        }
+        final JobExecution jobExecution = context.getStepExecution().getJobExecution();
+        // only registered on the step, the counters live until the end of the job
+        final Progress jobProgress = progress.computeIfAbsent(jobExecution.getId(), id -> new Progress(jobExecution.getJobInstance().getJobName()));
+        final long total = jobProgress.written.addAndGet(items.size());
+        if (!isEnabled()) {
+            return;
+        }
+        final long now = System.nanoTime();
+        if (total < jobProgress.nextReportCount && now - jobProgress.lastReportNanos < everyNanos) {
+            return;
+        }
+        synchronized (jobProgress) {
+            // another writer may have reported while this one waited for the lock
+            if (total < jobProgress.nextReportCount && now - jobProgress.lastReportNanos < everyNanos) {
+                return;
+            }
+            log.info("[{}] {} items written, {} items/s (overall {} items/s)",
+                    jobProgress.jobName, total,
+                    perSecond(total - jobProgress.lastReportCount, now - jobProgress.lastReportNanos),
+                    perSecond(total, now - jobProgress.startNanos));
+            jobProgress.lastReportNanos = now;
+            jobProgress.lastReportCount = total;
+            jobProgress.nextReportCount = everyItems == Long.MAX_VALUE ? Long.MAX_VALUE : total + everyItems;
+        }
+    }
+
+    @Override
+    public void onWriteError(Exception exception, List<?> items) {
+    }
+
+    /*
+        Items written so far by a running job execution, 0 once it has ended
+     */
+    public long getWrittenCount(JobExecution jobExecution) {
+        final Progress jobProgress = progress.get(jobExecution.getId());
+        return jobProgress != null ? jobProgress.written.get() : 0;
+    }
+
+    private boolean isEnabled() {
+        return (everyItems != Long.MAX_VALUE || everyNanos != Long.MAX_VALUE) && log.isInfoEnabled();
+    }
+
+    private static long perSecond(long items, long nanos) {
+        return nanos > 0 ? (long) (items * 1e9d / nanos) : items;
+    }
+
+    /*
+        The counters of one job execution, reports are written under its monitor
+     */
+    private class Progress {
+        private final String jobName;
+
+        private final AtomicLong written = new AtomicLong();
+
+        private final long startNanos = System.nanoTime();
+
+        private volatile long lastReportNanos = startNanos;
+
+        private volatile long lastReportCount;
+
+        private volatile long nextReportCount = everyItems;
+
+        Progress(String jobName) {
+            this.jobName = jobName;
+        }
+    }
+}
@@ -7,17 +7,22 @@ import org.springframework.batch.core.JobExecution;
 import org.springframework.batch.core.listener.JobExecutionListenerSupport;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Component;
 
 @Component
 public class JobCompletionNotificationListener extends JobExecutionListenerSupport {
     private static final Logger log = LoggerFactory.getLogger(JobCompletionNotificationListener.class);
 
+    private static final String SELECT_NAMES = "SELECT first_name, last_name FROM people";
+
     private final JdbcTemplate jdbcTemplate;
 
     @Autowired
     public JobCompletionNotificationListener(JdbcTemplate jdbcTemplate) {
-        this.jdbcTemplate = jdbcTemplate;
+        // a copy, the fetch size only applies to the verification query
+        this.jdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.jdbcTemplate.setFetchSize(10_000);
     }
 
     @Override
@@ -25,11 +30,31 @@ public class JobCompletionNotificationListener extends JobExecutionListenerSuppo
         if(jobExecution.getStatus() == BatchStatus.COMPLETED) {
             log.info("!!! JOB FINISHED! Time to verify the results");
 
-            jdbcTemplate.query("SELECT first_name, last_name FROM people",
-                    (rs, row) -> new Person(
-                            rs.getString(1),
-                            rs.getString(2))
-            ).forEach(person -> log.info("Found <" + person + "> in the database."));
+            // verify with one summary line instead of logging the whole table
+            PeopleSummary summary = summarize();
+            log.info("Found {} people in the database (name checksum {}).", summary.count, summary.checksum);
         }
     }
+
+    /*
+        Streams the names once, the checksum is the sum of the content hashes of IncrementalPersonItemWriter:
+        independent of the row order and of the database, but changed by any changed or swapped name
+     */
+    PeopleSummary summarize() {
+        PeopleSummary summary = new PeopleSummary();
+        Person person = new Person();
+        jdbcTemplate.query(SELECT_NAMES, (RowCallbackHandler) rs -> {
+            person.setFirstName(rs.getString(1));
+            person.setLastName(rs.getString(2));
+            summary.count++;
+            summary.checksum += IncrementalPersonItemWriter.contentHash(person);
+        });
+        return summary;
+    }
+
+    static final class PeopleSummary {
+        long count;
+
+        long checksum;
+    }
 }
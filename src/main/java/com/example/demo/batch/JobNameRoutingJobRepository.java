@@ -0,0 +1,110 @@
+package com.example.demo.batch;
+
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.repository.JobExecutionAlreadyRunningException;
+import org.springframework.batch.core.repository.JobInstanceAlreadyCompleteException;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.JobRestartException;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/*
+    JobNameRoutingJobRepository sends the metadata of the listed jobs to the lightweight repository
+    and everything else to the default one
+    Every call carries the job name, directly or through its instance or execution, so a single JobLauncher
+    and the jobs and steps built by the usual builder factories work with both
+ */
+public class JobNameRoutingJobRepository implements JobRepository {
+    private final JobRepository defaultRepository;
+
+    private final JobRepository lightweightRepository;
+
+    private final Set<String> lightweightJobs;
+
+    public JobNameRoutingJobRepository(JobRepository defaultRepository, JobRepository lightweightRepository, Collection<String> lightweightJobs) {
+        this.defaultRepository = defaultRepository;
+        this.lightweightRepository = lightweightRepository;
+        this.lightweightJobs = new HashSet<>(lightweightJobs);
+    }
+
+    @Override
+    public boolean isJobInstanceExists(String jobName, JobParameters jobParameters) {
+        return route(jobName).isJobInstanceExists(jobName, jobParameters);
+    }
+
+    @Override
+    public JobInstance createJobInstance(String jobName, JobParameters jobParameters) {
+        return route(jobName).createJobInstance(jobName, jobParameters);
+    }
+
+    @Override
+    public JobExecution createJobExecution(JobInstance jobInstance, JobParameters jobParameters, String jobConfigurationLocation) {
+        return route(jobInstance.getJobName()).createJobExecution(jobInstance, jobParameters, jobConfigurationLocation);
+    }
+
+    @Override
+    public JobExecution createJobExecution(String jobName, JobParameters jobParameters)
+            throws JobExecutionAlreadyRunningException, JobRestartException, JobInstanceAlreadyCompleteException {
+        return route(jobName).createJobExecution(jobName, jobParameters);
+    }
+
+    @Override
+    public void update(JobExecution jobExecution) {
+        route(jobExecution).update(jobExecution);
+    }
+
+    @Override
+    public void add(StepExecution stepExecution) {
+        route(stepExecution.getJobExecution()).add(stepExecution);
+    }
+
+    @Override
+    public void addAll(Collection<StepExecution> stepExecutions) {
+        if (!stepExecutions.isEmpty()) {
+            route(stepExecutions.iterator().next().getJobExecution()).addAll(stepExecutions);
+        }
+    }
+
+    @Override
+    public void update(StepExecution stepExecution) {
+        route(stepExecution.getJobExecution()).update(stepExecution);
+    }
+
+    @Override
+    public void updateExecutionContext(StepExecution stepExecution) {
+        route(stepExecution.getJobExecution()).updateExecutionContext(stepExecution);
+    }
+
+    @Override
+    public void updateExecutionContext(JobExecution jobExecution) {
+        route(jobExecution).updateExecutionContext(jobExecution);
+    }
+
+    @Override
+    public StepExecution getLastStepExecution(JobInstance jobInstance, String stepName) {
+        return route(jobInstance.getJobName()).getLastStepExecution(jobInstance, stepName);
+    }
+
+    @Override
+    public int getStepExecutionCount(JobInstance jobInstance, String stepName) {
+        return route(jobInstance.getJobName()).getStepExecutionCount(jobInstance, stepName);
+    }
+
+    @Override
+    public JobExecution getLastJobExecution(String jobName, JobParameters jobParameters) {
+        return route(jobName).getLastJobExecution(jobName, jobParameters);
+    }
+
+    private JobRepository route(JobExecution jobExecution) {
+        return route(jobExecution.getJobInstance().getJobName());
+    }
+
+    private JobRepository route(String jobName) {
+        return lightweightJobs.contains(jobName) ? lightweightRepository : defaultRepository;
+    }
+}
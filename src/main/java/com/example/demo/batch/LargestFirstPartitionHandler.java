@@ -0,0 +1,26 @@
+package com.example.demo.batch;
+
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.partition.support.TaskExecutorPartitionHandler;
+
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/*
+    LargestFirstPartitionHandler submits the worker steps in descending order of MultiFilePartitioner.FILE_SIZE_KEY
+    The splitter hands the partitions over in hash order, with a FIFO task executor this lets the largest files start
+    first, so the tail of the step is a few small files instead of one large file on a single thread
+ */
+public class LargestFirstPartitionHandler extends TaskExecutorPartitionHandler {
+    private static final Comparator<StepExecution> LARGEST_FIRST = Comparator.comparingLong(
+            (StepExecution stepExecution) -> stepExecution.getExecutionContext().getLong(MultiFilePartitioner.FILE_SIZE_KEY, 0))
+            .reversed();
+
+    @Override
+    protected Set<StepExecution> doHandle(StepExecution masterStepExecution, Set<StepExecution> partitionStepExecutions) throws Exception {
+        final Set<StepExecution> largestFirst = new LinkedHashSet<>(partitionStepExecutions.size());
+        partitionStepExecutions.stream().sorted(LARGEST_FIRST).forEach(largestFirst::add);
+        return super.doHandle(masterStepExecution, largestFirst);
+    }
+}
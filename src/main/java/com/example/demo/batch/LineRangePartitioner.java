@@ -0,0 +1,77 @@
+package com.example.demo.batch;
+
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+    LineRangePartitioner splits a line oriented resource into contiguous line ranges
+    Each partition receives [startLine, endLine) in its own ExecutionContext, so every worker step
+    keeps its own restart state in the job repository
+ */
+public class LineRangePartitioner implements Partitioner {
+    public static final String START_LINE_KEY = "startLine";
+    public static final String END_LINE_KEY = "endLine";
+
+    private static final String PARTITION_PREFIX = "partition";
+
+    private final Resource resource;
+
+    public LineRangePartitioner(Resource resource) {
+        this.resource = resource;
+    }
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        final int lineCount = countLines();
+        final int partitions = Math.max(1, Math.min(gridSize, lineCount));
+        final int rangeSize = lineCount / partitions;
+        final int remainder = lineCount % partitions;
+
+        final Map<String, ExecutionContext> result = new HashMap<>();
+        int startLine = 0;
+        for (int i = 0; i < partitions; i++) {
+            // spread the remainder over the first partitions so range sizes differ by at most one line
+            final int endLine = startLine + rangeSize + (i < remainder ? 1 : 0);
+
+            final ExecutionContext context = new ExecutionContext();
+            context.putInt(START_LINE_KEY, startLine);
+            context.putInt(END_LINE_KEY, endLine);
+            result.put(PARTITION_PREFIX + i, context);
+
+            startLine = endLine;
+        }
+        return result;
+    }
+
+    /*
+        Counts lines by scanning raw bytes, a trailing line without a line feed is counted as well
+     */
+    private int countLines() {
+        final byte[] buffer = new byte[64 * 1024];
+        int lines = 0;
+        byte last = '\n';
+        try (InputStream in = resource.getInputStream()) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                for (int i = 0; i < read; i++) {
+                    if (buffer[i] == '\n') {
+                        lines++;
+                    }
+                }
+                if (read > 0) {
+                    last = buffer[read - 1];
+                }
+            }
+        } catch (IOException e) {
+            throw new ItemStreamException("Failed to count lines of " + resource, e);
+        }
+        return last == '\n' ? lines : lines + 1;
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.demo.batch;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+/*
+    LongHashSet is a bounded set of primitive longs, open addressing with linear probing
+    8 bytes per slot and at least two slots per key, no boxing and no per entry objects,
+    the slots live in a LongBuffer on the heap or, off heap, in a direct buffer outside the Java heap
+
+    The slots are sized for initialSize keys and doubled when the set is half full, up to the slots for maxSize keys
+    Not thread safe, and add fails once maxSize keys are in the set
+ */
+public class LongHashSet {
+    private final boolean offHeap;
+
+    private final int maxSize;
+
+    private LongBuffer slots;
+
+    private int mask;
+
+    private int size;
+
+    // 0 marks a free slot, so the key 0 is kept aside
+    private boolean containsZero;
+
+    public LongHashSet(int maxSize, boolean offHeap) {
+        this(maxSize, maxSize, offHeap);
+    }
+
+    public LongHashSet(int initialSize, int maxSize, boolean offHeap) {
+        // fails early when maxSize keys do not fit
+        slotsFor(maxSize);
+        this.offHeap = offHeap;
+        this.maxSize = maxSize;
+        allocate(slotsFor(Math.min(initialSize, maxSize)));
+    }
+
+    private void allocate(int capacity) {
+        this.slots = offHeap
+                ? ByteBuffer.allocateDirect(capacity * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer()
+                : LongBuffer.allocate(capacity);
+        this.mask = capacity - 1;
+    }
+
+    /*
+        The slot count for maxSize keys, a power of two with a load factor of at most 0.5
+     */
+    public static int slotsFor(int maxSize) {
+        final int capacity = Integer.highestOneBit(Math.max(2, maxSize) * 2 - 1) << 1;
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Too many keys for a LongHashSet: " + maxSize);
+        }
+        return capacity;
+    }
+
+    /*
+        true when the key was added, false when it was in the set already
+     */
+    public boolean add(long key) {
+        if (key == 0) {
+            if (containsZero) {
+                return false;
+            }
+            checkCapacity();
+            containsZero = true;
+            size++;
+            return true;
+        }
+        for (int i = slot(key); ; i = (i + 1) & mask) {
+            final long current = slots.get(i);
+            if (current == key) {
+                return false;
+            }
+            if (current == 0) {
+                checkCapacity();
+                if ((size + 1) * 2 > slots.capacity()) {
+                    grow();
+                    return add(key);
+                }
+                slots.put(i, key);
+                size++;
+                return true;
+            }
+        }
+    }
+
+    /*
+        Doubles the slots and inserts the keys again, the zero key is not in the slots
+     */
+    private void grow() {
+        final LongBuffer previous = slots;
+        allocate(previous.capacity() * 2);
+        for (int i = 0; i < previous.capacity(); i++) {
+            final long key = previous.get(i);
+            if (key != 0) {
+                int slot = slot(key);
+                while (slots.get(slot) != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slots.put(slot, key);
+            }
+        }
+    }
+
+    public boolean contains(long key) {
+        if (key == 0) {
+            return containsZero;
+        }
+        for (int i = slot(key); ; i = (i + 1) & mask) {
+            final long current = slots.get(i);
+            if (current == key) {
+                return true;
+            }
+            if (current == 0) {
+                return false;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /*
+        The bytes of the slots allocated so far
+     */
+    public long sizeInBytes() {
+        return (long) slots.capacity() * Long.BYTES;
+    }
+
+    public boolean isFull() {
+        return size >= maxSize;
+    }
+
+    private void checkCapacity() {
+        if (isFull()) {
+            throw new IllegalStateException("LongHashSet is full at " + maxSize + " keys");
+        }
+    }
+
+    /*
+        The murmur3 finalizer, so keys that differ in the high bits only do not share a probe sequence
+     */
+    private int slot(long key) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.demo.batch;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/*
+    LookupCache is a bounded LRU cache with a time to live for reference data looked up during a step
+    Keys the loader does not return are cached as null, so a missing reference row is not queried again until it expires
+
+    getAll answers what it can from the cache and loads the rest with a single loader call, outside the lock,
+    so two threads missing the same key may both load it. Beyond maxSize the least recently used entry is evicted,
+    expired entries are evicted when they are looked up. Hits and misses are counted per key and call
+ */
+public class LookupCache<K, V> {
+    private final long ttlNanos;
+
+    private final LruMap<K, Entry<V>> entries;
+
+    private long hits;
+
+    private long misses;
+
+    private long puts;
+
+    // expired entries, the least recently used ones are counted by entries
+    private long evictions;
+
+    public LookupCache(int maxSize, long ttl, TimeUnit unit) {
+        this.ttlNanos = unit.toNanos(ttl);
+        this.entries = new LruMap<>(maxSize);
+    }
+
+    /*
+        The values of keys, null for keys the loader did not find
+        loader receives the keys that are not cached and returns the values of those it found
+     */
+    public Map<K, V> getAll(Collection<? extends K> keys, Function<Set<K>, Map<K, V>> loader) {
+        final Map<K, V> result = new HashMap<>(keys.size() * 2);
+        final Set<K> missing = new LinkedHashSet<>();
+        final long now = System.nanoTime();
+        synchronized (this) {
+            for (K key : keys) {
+                final Entry<V> entry = entries.get(key);
+                if (entry != null && now - entry.loadedAt < ttlNanos) {
+                    hits++;
+                    result.put(key, entry.value);
+                } else {
+                    if (entry != null) {
+                        entries.remove(key);
+                        evictions++;
+                    }
+                    if (missing.add(key)) {
+                        misses++;
+                    }
+                }
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+        final Map<K, V> loaded = loader.apply(missing);
+        final long loadedAt = System.nanoTime();
+        synchronized (this) {
+            for (K key : missing) {
+                final V value = loaded.get(key);
+                entries.put(key, new Entry<>(value, loadedAt));
+                puts++;
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long hitCount() {
+        return hits;
+    }
+
+    public synchronized long missCount() {
+        return misses;
+    }
+
+    public synchronized long putCount() {
+        return puts;
+    }
+
+    public synchronized long evictionCount() {
+        return evictions + entries.evictions;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /*
+        Publishes the cache.gets (hit/miss), cache.puts, cache.evictions and cache.size meters tagged with the cache name,
+        a MeterBinder bean is bound to the registry by Spring Boot
+     */
+    public MeterBinder metrics(String name) {
+        return new CacheMeterBinder(this, name, Tags.empty()) {
+            @Override
+            protected Long size() {
+                return (long) LookupCache.this.size();
+            }
+
+            @Override
+            protected long hitCount() {
+                return LookupCache.this.hitCount();
+            }
+
+            @Override
+            protected Long missCount() {
+                return LookupCache.this.missCount();
+            }
+
+            @Override
+            protected Long evictionCount() {
+                return LookupCache.this.evictionCount();
+            }
+
+            @Override
+            protected long putCount() {
+                return LookupCache.this.putCount();
+            }
+
+            @Override
+            protected void bindImplementationSpecificMetrics(MeterRegistry registry) {
+            }
+        };
+    }
+
+    /*
+        An access ordered map that drops its least recently used entry beyond maxSize, guarded by the cache's lock
+     */
+    private static final class LruMap<K, V> extends LinkedHashMap<K, V> {
+        private static final long serialVersionUID = 1L;
+
+        private final int maxSize;
+
+        private long evictions;
+
+        LruMap(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            if (size() > maxSize) {
+                evictions++;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private static class Entry<V> {
+        final V value;
+        final long loadedAt;
+
+        Entry(V value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
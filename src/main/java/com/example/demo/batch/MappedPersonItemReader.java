@@ -0,0 +1,194 @@
+package com.example.demo.batch;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.file.FlatFileParseException;
+import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
+import org.springframework.core.io.Resource;
+import org.springframework.util.Assert;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/*
+    MappedPersonItemReader reads "firstName,lastName" lines straight from a memory mapped file
+    Delimiters are scanned over the mapped bytes and each Person is built with its constructor, so there is
+    no intermediate line String, FieldSet or bean reflection per item
+
+    The byte offset of the next line is saved in the ExecutionContext next to the read count,
+    a restart seeks to that offset instead of re-reading the skipped lines
+    Quoted fields are not supported, the input is expected to be plain UTF-8 delimited text
+ */
+public class MappedPersonItemReader extends AbstractItemCountingItemStreamItemReader<Person> {
+    private static final String OFFSET_KEY = "offset";
+
+    private static final int DEFAULT_WINDOW_SIZE = 256 * 1024 * 1024;
+
+    private Resource resource;
+
+    private byte delimiter = ',';
+
+    private int windowSize = DEFAULT_WINDOW_SIZE;
+
+    private FileChannel channel;
+
+    private long fileSize;
+
+    private MappedByteBuffer window;
+
+    private long windowStart;
+
+    // absolute byte offset of the next line
+    private long position;
+
+    private long restartOffset = -1L;
+
+    private byte[] scratch = new byte[256];
+
+    public MappedPersonItemReader() {
+        setName("mappedPersonItemReader");
+    }
+
+    public void setResource(Resource resource) {
+        this.resource = resource;
+    }
+
+    public void setDelimiter(char delimiter) {
+        Assert.isTrue(delimiter < 0x80, "delimiter must be an ASCII character");
+        this.delimiter = (byte) delimiter;
+    }
+
+    /*
+        Files larger than the window are mapped region by region, a single line must fit in one window
+     */
+    public void setWindowSize(int windowSize) {
+        Assert.isTrue(windowSize > 0, "windowSize must be positive");
+        this.windowSize = windowSize;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        final String offsetKey = getExecutionContextKey(OFFSET_KEY);
+        restartOffset = executionContext.containsKey(offsetKey) ? executionContext.getLong(offsetKey) : -1L;
+        super.open(executionContext);
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        super.update(executionContext);
+        if (isSaveState()) {
+            executionContext.putLong(getExecutionContextKey(OFFSET_KEY), position);
+        }
+    }
+
+    @Override
+    protected void doOpen() throws Exception {
+        Assert.notNull(resource, "resource must be set");
+        channel = FileChannel.open(resource.getFile().toPath(), StandardOpenOption.READ);
+        fileSize = channel.size();
+        position = 0L;
+        if (fileSize > 0) {
+            remap(0L);
+        }
+    }
+
+    @Override
+    protected void doClose() throws Exception {
+        window = null;
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    @Override
+    protected void jumpToItem(int itemIndex) throws Exception {
+        if (restartOffset >= 0) {
+            position = restartOffset;
+            return;
+        }
+        for (int i = 0; i < itemIndex && position < fileSize; i++) {
+            position += lineLength() + 1;
+        }
+    }
+
+    @Override
+    protected Person doRead() throws Exception {
+        if (position >= fileSize) {
+            return null;
+        }
+        final int lineLength = lineLength();
+        final int lineNumber = getCurrentItemCount();
+
+        int length = lineLength;
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        window.position((int) (position - windowStart));
+        window.get(scratch, 0, length);
+        position += lineLength + 1;
+
+        if (length > 0 && scratch[length - 1] == '\r') {
+            length--;
+        }
+
+        int split = -1;
+        for (int i = 0; i < length; i++) {
+            if (scratch[i] == delimiter) {
+                if (split >= 0) {
+                    throw parseException("Too many fields", length, lineNumber);
+                }
+                split = i;
+            }
+        }
+        if (split < 0) {
+            throw parseException("Missing delimiter", length, lineNumber);
+        }
+
+        return new Person(
+                new String(scratch, 0, split, StandardCharsets.UTF_8),
+                new String(scratch, split + 1, length - split - 1, StandardCharsets.UTF_8));
+    }
+
+    /*
+        Length of the line starting at position without its line feed, remapping the window when the line crosses its end
+     */
+    private int lineLength() throws IOException {
+        if (position < windowStart || position >= windowStart + window.limit()) {
+            remap(position);
+        }
+        int offset = (int) (position - windowStart);
+        int i = offset;
+        while (true) {
+            if (i == window.limit()) {
+                if (windowStart + i == fileSize) {
+                    return i - offset;
+                }
+                if (offset == 0) {
+                    throw new ItemStreamException("Line at offset " + position + " does not fit in a mapping window of " + windowSize + " bytes");
+                }
+                remap(position);
+                i -= offset;
+                offset = 0;
+                continue;
+            }
+            if (window.get(i) == '\n') {
+                return i - offset;
+            }
+            i++;
+        }
+    }
+
+    private void remap(long start) throws IOException {
+        windowStart = start;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(windowSize, fileSize - start));
+    }
+
+    private FlatFileParseException parseException(String message, int length, int lineNumber) {
+        final String line = new String(scratch, 0, length, StandardCharsets.UTF_8);
+        return new FlatFileParseException(message + " in line " + lineNumber + " of " + resource + ": " + line, line, lineNumber);
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.demo.batch;
+
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.configuration.annotation.JobBuilderFactory;
+import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.core.launch.support.RunIdIncrementer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import javax.sql.DataSource;
+
+/*
+    The housekeeping job for the Spring Batch metadata tables, see MetadataCleanupTasklet
+    It is scheduled like any other job, see schedule2.jobs.MetadataCleanupScheduleConfiguration
+    Its step commits on the metadata DataSource, so every batch of deletes is one transaction there
+ */
+@Configuration
+public class MetadataCleanupJobConfiguration {
+    @Autowired
+    public JobBuilderFactory jobBuilderFactory;
+
+    @Autowired
+    public StepBuilderFactory stepBuilderFactory;
+
+    @Autowired
+    private BatchMetricsListener metricsListener;
+
+    @Value("${batch.housekeeping.retention-days:30}")
+    private int retentionDays;
+
+    @Value("${batch.housekeeping.batch-size:500}")
+    private int batchSize;
+
+    @Value("${spring.batch.table-prefix:BATCH_}")
+    private String tablePrefix;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @MetadataDataSource
+    @Autowired
+    private ObjectProvider<DataSource> metadataDataSource;
+
+    @Bean
+    public MetadataCleanupTasklet metadataCleanupTasklet() {
+        MetadataCleanupTasklet tasklet = new MetadataCleanupTasklet(metadataDataSource());
+        tasklet.setTablePrefix(tablePrefix);
+        tasklet.setRetentionDays(retentionDays);
+        tasklet.setBatchSize(batchSize);
+        return tasklet;
+    }
+
+    @Bean
+    public Job metadataCleanupJob(Step metadataCleanupStep) {
+        return jobBuilderFactory.get("metadataCleanupJob")
+                .incrementer(new RunIdIncrementer())
+                .listener((JobExecutionListener) metricsListener)
+                .start(metadataCleanupStep)
+                .build();
+    }
+
+    @Bean
+    public Step metadataCleanupStep(MetadataCleanupTasklet metadataCleanupTasklet) {
+        return stepBuilderFactory.get("metadataCleanupStep")
+                .tasklet(metadataCleanupTasklet)
+                .transactionManager(new DataSourceTransactionManager(metadataDataSource()))
+                .listener((StepExecutionListener) metricsListener)
+                .build();
+    }
+
+    /*
+        The @MetadataDataSource, or the primary DataSource without a metadata pool
+     */
+    private DataSource metadataDataSource() {
+        return metadataDataSource.getIfAvailable(() -> dataSource);
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.demo.batch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.util.Assert;
+
+import javax.sql.DataSource;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+    MetadataCleanupTasklet prunes the Spring Batch metadata of job executions that ended more than retentionDays ago
+    Every scheduled run creates a new job instance, so without it the BATCH_* tables grow without bound
+
+    Each call deletes at most batchSize executions, with their step executions, contexts and parameters, children first
+    It returns CONTINUABLE while there is more to delete, so every batch commits in its own transaction
+    and the locks and undo log stay small no matter how large the backlog is
+    Executions without an END_TIME are still running and are never touched, job instances are deleted
+    once their last execution is gone
+ */
+public class MetadataCleanupTasklet implements Tasklet, InitializingBean {
+    private static final Logger log = LoggerFactory.getLogger(MetadataCleanupTasklet.class);
+
+    public static final String DELETED_EXECUTIONS_KEY = "metadataCleanup.deletedExecutions";
+
+    private final DataSource dataSource;
+
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    // limited to batchSize rows, only used for the select of the next batch
+    private NamedParameterJdbcTemplate batchTemplate;
+
+    private String tablePrefix = "BATCH_";
+
+    private int retentionDays = 30;
+
+    private int batchSize = 500;
+
+    public MetadataCleanupTasklet(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    public void setTablePrefix(String tablePrefix) {
+        this.tablePrefix = tablePrefix;
+    }
+
+    public void setRetentionDays(int retentionDays) {
+        this.retentionDays = retentionDays;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        Assert.isTrue(retentionDays >= 0, "retentionDays must not be negative");
+        Assert.isTrue(batchSize > 0, "batchSize must be positive");
+        jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        JdbcTemplate limited = new JdbcTemplate(dataSource);
+        limited.setMaxRows(batchSize);
+        batchTemplate = new NamedParameterJdbcTemplate(limited);
+    }
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) {
+        Date cutoff = new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(retentionDays));
+        List<Long> executionIds = batchTemplate.queryForList(
+                sql("SELECT JOB_EXECUTION_ID FROM %PREFIX%JOB_EXECUTION WHERE END_TIME < :cutoff ORDER BY END_TIME"),
+                new MapSqlParameterSource("cutoff", cutoff), Long.class);
+        if (executionIds.isEmpty()) {
+            return RepeatStatus.FINISHED;
+        }
+
+        MapSqlParameterSource ids = new MapSqlParameterSource("ids", executionIds);
+        List<Long> instanceIds = jdbcTemplate.queryForList(
+                sql("SELECT DISTINCT JOB_INSTANCE_ID FROM %PREFIX%JOB_EXECUTION WHERE JOB_EXECUTION_ID IN (:ids)"), ids, Long.class);
+
+        jdbcTemplate.update(sql("DELETE FROM %PREFIX%STEP_EXECUTION_CONTEXT WHERE STEP_EXECUTION_ID IN "
+                + "(SELECT STEP_EXECUTION_ID FROM %PREFIX%STEP_EXECUTION WHERE JOB_EXECUTION_ID IN (:ids))"), ids);
+        int steps = jdbcTemplate.update(sql("DELETE FROM %PREFIX%STEP_EXECUTION WHERE JOB_EXECUTION_ID IN (:ids)"), ids);
+        jdbcTemplate.update(sql("DELETE FROM %PREFIX%JOB_EXECUTION_CONTEXT WHERE JOB_EXECUTION_ID IN (:ids)"), ids);
+        jdbcTemplate.update(sql("DELETE FROM %PREFIX%JOB_EXECUTION_PARAMS WHERE JOB_EXECUTION_ID IN (:ids)"), ids);
+        int executions = jdbcTemplate.update(sql("DELETE FROM %PREFIX%JOB_EXECUTION WHERE JOB_EXECUTION_ID IN (:ids)"), ids);
+        int instances = jdbcTemplate.update(sql("DELETE FROM %PREFIX%JOB_INSTANCE WHERE JOB_INSTANCE_ID IN (:ids) "
+                        + "AND JOB_INSTANCE_ID NOT IN (SELECT JOB_INSTANCE_ID FROM %PREFIX%JOB_EXECUTION WHERE JOB_INSTANCE_ID IN (:ids))"),
+                new MapSqlParameterSource("ids", instanceIds));
+
+        log.info("Pruned {} job executions, {} step executions and {} job instances that ended before {}.",
+                executions, steps, instances, cutoff);
+        contribution.incrementWriteCount(executions);
+        ExecutionContext context = chunkContext.getStepContext().getStepExecution().getExecutionContext();
+        context.putLong(DELETED_EXECUTIONS_KEY, context.getLong(DELETED_EXECUTIONS_KEY, 0L) + executions);
+
+        return executionIds.size() < batchSize ? RepeatStatus.FINISHED : RepeatStatus.CONTINUABLE;
+    }
+
+    private String sql(String template) {
+        return template.replace("%PREFIX%", tablePrefix);
+    }
+}
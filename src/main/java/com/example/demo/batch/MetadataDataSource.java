@@ -0,0 +1,20 @@
+package com.example.demo.batch;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/*
+    Qualifies the DataSource of the Spring Batch metadata, the counterpart of Boot's @QuartzDataSource
+    Without such a bean the metadata lives on the primary DataSource, see DataSourceConfiguration
+ */
+@Target({ElementType.FIELD, ElementType.METHOD, ElementType.PARAMETER, ElementType.TYPE, ElementType.ANNOTATION_TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Qualifier
+public @interface MetadataDataSource {
+}
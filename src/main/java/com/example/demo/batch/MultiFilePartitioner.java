@@ -0,0 +1,115 @@
+package com.example.demo.batch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.util.ResourceUtils;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+    MultiFilePartitioner creates one partition per file matching a directory or a pattern, e.g. /data/in or
+    /data/in/*.csv.gz, plain paths are file system paths, classpath: and file: prefixes work as usual
+    Each partition receives the URL and the size of its file, the grid size is ignored
+
+    A partition is named after its file rather than its position, so on restart every file gets the restart
+    state of its own previous worker step even when files were added to the directory meanwhile
+ */
+public class MultiFilePartitioner implements Partitioner {
+    private static final Logger log = LoggerFactory.getLogger(MultiFilePartitioner.class);
+
+    public static final String FILE_KEY = "file";
+    public static final String FILE_SIZE_KEY = "fileSize";
+
+    private static final int MAX_NAME_LENGTH = 60;
+
+    private final PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+
+    private final String location;
+
+    public MultiFilePartitioner(String location) {
+        this.location = ResourceUtils.isUrl(location) ? location : ResourceUtils.FILE_URL_PREFIX + location;
+    }
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        final Map<String, ExecutionContext> result = new HashMap<>();
+        for (Resource file : resolve()) {
+            final ExecutionContext context = new ExecutionContext();
+            try {
+                context.putString(FILE_KEY, file.getURL().toExternalForm());
+                context.putLong(FILE_SIZE_KEY, file.contentLength());
+            } catch (IOException e) {
+                throw new ItemStreamException("Failed to resolve " + file, e);
+            }
+            result.put(partitionName(file, result), context);
+        }
+        if (result.isEmpty()) {
+            log.warn("No files to import in {}", location);
+        }
+        return result;
+    }
+
+    /*
+        The readable files of the location sorted from the largest to the smallest, a directory means all of its files
+     */
+    public List<Resource> resolve() {
+        final String pattern = isDirectory(location) ? StringUtils.trimTrailingCharacter(location, '/') + "/*" : location;
+        final List<Resource> files = new ArrayList<>();
+        try {
+            for (Resource resource : resolver.getResources(pattern)) {
+                if (resource.isReadable() && !isDirectory(resource)) {
+                    files.add(resource);
+                }
+            }
+            files.sort(Comparator.comparingLong(MultiFilePartitioner::contentLength).reversed());
+        } catch (IOException e) {
+            throw new ItemStreamException("Failed to list the files of " + location, e);
+        }
+        return files;
+    }
+
+    private boolean isDirectory(String location) {
+        return !resolver.getPathMatcher().isPattern(location) && isDirectory(resolver.getResource(location));
+    }
+
+    private static boolean isDirectory(Resource resource) {
+        try {
+            return resource.isFile() && resource.getFile().isDirectory();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static long contentLength(Resource resource) {
+        try {
+            return resource.contentLength();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /*
+        The file name, made unique with the hash of the URL when two matched directories hold the same name
+     */
+    private static String partitionName(Resource file, Map<String, ExecutionContext> partitions) {
+        String name = file.getFilename() == null ? "" : file.getFilename();
+        if (name.length() > MAX_NAME_LENGTH) {
+            name = name.substring(0, MAX_NAME_LENGTH);
+        }
+        if (name.isEmpty() || partitions.containsKey(name)) {
+            name = name + "@" + Integer.toHexString(file.getDescription().hashCode());
+        }
+        return name;
+    }
+}
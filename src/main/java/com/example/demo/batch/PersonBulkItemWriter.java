@@ -0,0 +1,176 @@
+package com.example.demo.batch;
+
+import org.postgresql.PGConnection;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.support.DatabaseType;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.util.Assert;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.CharArrayReader;
+import java.io.CharArrayWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.util.List;
+import java.util.Locale;
+
+/*
+    PersonBulkItemWriter writes a whole chunk into people with as few statements as possible
+    It joins the step transaction through DataSourceUtils, so a rollback of the chunk rolls back the bulk load too
+
+    MULTI_ROW  INSERT ... VALUES (?, ?), (?, ?), ... with up to rowsPerStatement rows per statement, any dialect
+    CSVREAD    the chunk is spooled to a temporary CSV file and loaded with INSERT ... SELECT FROM CSVREAD, H2 only
+    COPY       the chunk is streamed through COPY ... FROM STDIN, PostgreSQL only
+ */
+public class PersonBulkItemWriter implements ItemWriter<Person>, InitializingBean {
+    private static final String INSERT_PREFIX = "INSERT INTO people (first_name, last_name) VALUES ";
+
+    public enum Strategy {
+        MULTI_ROW, CSVREAD, COPY;
+
+        /*
+            Accepts the property style names, e.g. multi-row
+         */
+        public static Strategy of(String name) {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        }
+    }
+
+    private final DataSource dataSource;
+
+    private final Strategy strategy;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private int rowsPerStatement = 500;
+
+    // the statement for a full group of rowsPerStatement rows, built once
+    private String fullInsert;
+
+    public PersonBulkItemWriter(DataSource dataSource, Strategy strategy) {
+        this.dataSource = dataSource;
+        this.strategy = strategy;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    public void setRowsPerStatement(int rowsPerStatement) {
+        this.rowsPerStatement = rowsPerStatement;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        Assert.isTrue(rowsPerStatement > 0, "rowsPerStatement must be positive");
+        fullInsert = multiRowInsert(rowsPerStatement);
+
+        if (strategy == Strategy.CSVREAD) {
+            Assert.state(DatabaseType.fromMetaData(dataSource) == DatabaseType.H2, "CSVREAD bulk load requires H2");
+        } else if (strategy == Strategy.COPY) {
+            Assert.state(DatabaseType.fromMetaData(dataSource) == DatabaseType.POSTGRES, "COPY bulk load requires PostgreSQL");
+        }
+    }
+
+    @Override
+    public void write(List<? extends Person> items) throws Exception {
+        if (items.isEmpty()) {
+            return;
+        }
+        switch (strategy) {
+            case CSVREAD:
+                writeCsvRead(items);
+                break;
+            case COPY:
+                writeCopy(items);
+                break;
+            default:
+                writeMultiRow(items);
+        }
+    }
+
+    private void writeMultiRow(List<? extends Person> items) {
+        for (int from = 0; from < items.size(); from += rowsPerStatement) {
+            final List<? extends Person> group = items.subList(from, Math.min(from + rowsPerStatement, items.size()));
+            final String sql = group.size() == rowsPerStatement ? fullInsert : multiRowInsert(group.size());
+            jdbcTemplate.update(sql, ps -> {
+                int index = 1;
+                for (Person person : group) {
+                    ps.setString(index++, person.getFirstName());
+                    ps.setString(index++, person.getLastName());
+                }
+            });
+        }
+    }
+
+    private void writeCsvRead(List<? extends Person> items) throws IOException {
+        final File file = File.createTempFile("people-", ".csv");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+                writeCsv(items, writer);
+            }
+            // CSVREAD resolves its columns while the statement is prepared, so the file name is inlined as a literal
+            final String path = file.getAbsolutePath().replace("'", "''");
+            jdbcTemplate.update("INSERT INTO people (first_name, last_name) "
+                    + "SELECT first_name, last_name FROM CSVREAD('" + path + "', 'FIRST_NAME,LAST_NAME', 'charset=UTF-8')");
+        } finally {
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+
+    private void writeCopy(List<? extends Person> items) throws Exception {
+        final CharArrayWriter buffer = new CharArrayWriter(items.size() * 24);
+        writeCsv(items, buffer);
+
+        final Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            connection.unwrap(PGConnection.class).getCopyAPI()
+                    .copyIn("COPY people (first_name, last_name) FROM STDIN WITH (FORMAT csv)", new CharArrayReader(buffer.toCharArray()));
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    static void writeCsv(List<? extends Person> items, Writer writer) throws IOException {
+        for (Person person : items) {
+            writeField(person.getFirstName(), writer);
+            writer.write(',');
+            writeField(person.getLastName(), writer);
+            writer.write('\n');
+        }
+    }
+
+    /*
+        Fields are always quoted, so delimiters and line feeds inside names survive, null is written as an empty field
+     */
+    private static void writeField(String value, Writer writer) throws IOException {
+        if (value == null) {
+            return;
+        }
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '"') {
+                writer.write('"');
+            }
+            writer.write(c);
+        }
+        writer.write('"');
+    }
+
+    private static String multiRowInsert(int rows) {
+        final StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + rows * 8);
+        sql.append(INSERT_PREFIX);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append("(?, ?)");
+        }
+        return sql.toString();
+    }
+}
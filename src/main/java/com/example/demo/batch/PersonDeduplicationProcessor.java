@@ -0,0 +1,293 @@
+package com.example.demo.batch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+    PersonDeduplicationProcessor filters people that are already in the people table or earlier in the same import
+    Chain it after PersonItemProcessor, people are compared by the content hash of IncrementalPersonItemWriter
+
+    When the first step of a job execution starts, the hashes of all people are loaded into a BloomFilter and,
+    up to maxKeys, into a LongHashSet, so an item costs a few memory probes and no query:
+
+    not in the Bloom filter   a new person
+    in the hash set           a duplicate, a 64 bit hash collision between two different people is ignored
+    anything else             only when the set overflowed: one query decides, false positives of the filter are counted
+
+    The people of a chunk only go into the index once the chunk committed, until then they are in flight:
+    a person in flight in any chunk of the job execution is a duplicate, unless it is the same Person instance processed again,
+    e.g. after a retry or by the one by one fallback of ChunkItemProcessorAdapter. A rolled back chunk takes
+    its people out of flight, so processing them again does not filter them as duplicates of themselves
+    This needs the listener interfaces: register it as StepExecutionListener and ChunkListener of the step
+
+    Once the set overflowed, people of committed chunks are still found, by the query, and people of chunks
+    in flight by their hashes, only the query per Bloom filter hit makes the import slower
+
+    maxKeys bounds the memory: 16 to 32 bytes per key for the set, on or off heap, which is sized for the loaded
+    people and grows with the new ones, plus bitsPerKey / 8 bytes per key for the filter, which is sized
+    for the loaded people plus maxKeys new ones
+    Partition workers and async processor threads share the index of their job execution, it is dropped
+    when the last step using it ended. Without a step context, e.g. on remote chunking workers, every item is queried
+ */
+public class PersonDeduplicationProcessor implements ItemProcessor<Person, Person>, StepExecutionListener, ChunkListener {
+    private static final Logger log = LoggerFactory.getLogger(PersonDeduplicationProcessor.class);
+
+    private static final String SELECT_ALL = "SELECT first_name, last_name FROM people";
+    private static final String COUNT_ALL = "SELECT COUNT(*) FROM people";
+    private static final String COUNT_PERSON = "SELECT COUNT(*) FROM people WHERE ";
+
+    // keys the set has room for before it grows the first time
+    private static final int INITIAL_KEYS = 1 << 16;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final int maxKeys;
+
+    private final int bitsPerKey;
+
+    private final boolean offHeap;
+
+    private final Map<Long, KeyIndex> indexes = new ConcurrentHashMap<>();
+
+    public PersonDeduplicationProcessor(DataSource dataSource, int maxKeys, int bitsPerKey, boolean offHeap) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(10_000);
+        this.maxKeys = maxKeys;
+        this.bitsPerKey = bitsPerKey;
+        this.offHeap = offHeap;
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        final KeyIndex index = indexes.computeIfAbsent(stepExecution.getJobExecutionId(), id -> load());
+        synchronized (index) {
+            index.steps++;
+        }
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        final KeyIndex index = indexes.get(stepExecution.getJobExecutionId());
+        if (index != null) {
+            synchronized (index) {
+                index.discard(stepExecution.getId());
+                if (--index.steps == 0) {
+                    indexes.remove(stepExecution.getJobExecutionId());
+                    log.info("Deduplication of job execution {}: {} duplicates, {} queries, {} false positives",
+                            stepExecution.getJobExecutionId(), index.duplicates, index.queries, index.falsePositives);
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void beforeChunk(ChunkContext context) {
+    }
+
+    /*
+        Called once the chunk transaction committed
+     */
+    @Override
+    public void afterChunk(ChunkContext context) {
+        final StepExecution stepExecution = context.getStepContext().getStepExecution();
+        final KeyIndex index = indexes.get(stepExecution.getJobExecutionId());
+        if (index != null) {
+            synchronized (index) {
+                index.commit(stepExecution.getId());
+            }
+        }
+    }
+
+    @Override
+    public void afterChunkError(ChunkContext context) {
+        final StepExecution stepExecution = context.getStepContext().getStepExecution();
+        final KeyIndex index = indexes.get(stepExecution.getJobExecutionId());
+        if (index != null) {
+            synchronized (index) {
+                index.discard(stepExecution.getId());
+            }
+        }
+    }
+
+    @Override
+    public Person process(Person person) {
+        final StepContext context = StepSynchronizationManager.getContext();
+        final KeyIndex index = context == null ? null : indexes.get(context.getStepExecution().getJobExecutionId());
+        if (index == null) {
+            return exists(person) ? null : person;
+        }
+        final long hash = IncrementalPersonItemWriter.contentHash(person);
+        final Long stepExecutionId = context.getStepExecution().getId();
+        Lookup lookup;
+        synchronized (index) {
+            lookup = index.lookup(hash, person);
+            if (lookup == Lookup.NEW) {
+                index.stage(hash, person, stepExecutionId);
+            }
+        }
+        if (lookup == Lookup.UNKNOWN) {
+            // outside the lock, other threads keep deduplicating from memory meanwhile
+            index.queries.increment();
+            if (exists(person)) {
+                lookup = Lookup.DUPLICATE;
+            } else {
+                index.falsePositives.increment();
+                synchronized (index) {
+                    // another thread may have put the same person in flight during the query
+                    lookup = index.lookup(hash, person) == Lookup.DUPLICATE ? Lookup.DUPLICATE : Lookup.NEW;
+                    if (lookup == Lookup.NEW) {
+                        index.stage(hash, person, stepExecutionId);
+                    }
+                }
+            }
+        }
+        if (lookup == Lookup.NEW) {
+            return person;
+        }
+        index.duplicates.increment();
+        return null;
+    }
+
+    /*
+        Uses people_name_idx, people of every writer have their names but only incremental ones a natural_key
+        A missing name matches null and empty names, as in the content hash
+     */
+    private boolean exists(Person person) {
+        final List<Object> args = new ArrayList<>(2);
+        final String sql = COUNT_PERSON + matches("first_name", person.getFirstName(), args)
+                + " AND " + matches("last_name", person.getLastName(), args);
+        return jdbcTemplate.queryForObject(sql, Integer.class, args.toArray()) > 0;
+    }
+
+    private static String matches(String column, String value, List<Object> args) {
+        if (value == null || value.isEmpty()) {
+            return "(" + column + " IS NULL OR " + column + " = '')";
+        }
+        args.add(value);
+        return column + " = ?";
+    }
+
+    private KeyIndex load() {
+        final long started = System.currentTimeMillis();
+        final long existing = jdbcTemplate.queryForObject(COUNT_ALL, Long.class);
+        final KeyIndex index = new KeyIndex(new BloomFilter(existing + maxKeys, bitsPerKey),
+                existing <= maxKeys ? new LongHashSet((int) Math.max(existing, INITIAL_KEYS), maxKeys, offHeap) : null);
+        final Person person = new Person();
+        jdbcTemplate.query(SELECT_ALL, (RowCallbackHandler) rs -> {
+            person.setFirstName(rs.getString(1));
+            person.setLastName(rs.getString(2));
+            index.add(IncrementalPersonItemWriter.contentHash(person));
+        });
+        log.info("Loaded {} people for deduplication in {} ms, Bloom filter {} KB, {}", existing,
+                System.currentTimeMillis() - started, index.filter.sizeInBytes() / 1024, index.set != null
+                        ? "hash set " + index.set.sizeInBytes() / 1024 + " KB for up to " + maxKeys + " keys"
+                        : "no hash set above " + maxKeys + " keys");
+        return index;
+    }
+
+    private enum Lookup {
+        NEW, DUPLICATE, UNKNOWN
+    }
+
+    /*
+        Guarded by its own monitor, except for the counters
+     */
+    private static class KeyIndex {
+        final BloomFilter filter;
+
+        // null once more than maxKeys keys are known
+        LongHashSet set;
+
+        // the hashes of people in uncommitted chunks, with the item that put them in flight
+        final Map<Long, Person> inFlight = new HashMap<>();
+
+        // the hashes each step execution put in flight in its current chunk
+        final Map<Long, List<Long>> chunks = new HashMap<>();
+
+        int steps;
+
+        final LongAdder duplicates = new LongAdder();
+        final LongAdder queries = new LongAdder();
+        final LongAdder falsePositives = new LongAdder();
+
+        KeyIndex(BloomFilter filter, LongHashSet set) {
+            this.filter = filter;
+            this.set = set;
+        }
+
+        /*
+            Whether the hash is known from the committed people or from people in flight
+            Without the set a hash the filter may know is UNKNOWN, the caller has to ask the database
+         */
+        Lookup lookup(long hash, Person person) {
+            final Person staged = inFlight.get(hash);
+            if (staged != null) {
+                return staged == person ? Lookup.NEW : Lookup.DUPLICATE;
+            }
+            if (filter.mightContain(hash)) {
+                if (set == null) {
+                    return Lookup.UNKNOWN;
+                }
+                if (set.contains(hash)) {
+                    return Lookup.DUPLICATE;
+                }
+            }
+            return Lookup.NEW;
+        }
+
+        void stage(long hash, Person person, Long stepExecutionId) {
+            if (inFlight.put(hash, person) == null) {
+                chunks.computeIfAbsent(stepExecutionId, id -> new ArrayList<>()).add(hash);
+            }
+        }
+
+        void commit(Long stepExecutionId) {
+            final List<Long> hashes = chunks.remove(stepExecutionId);
+            if (hashes != null) {
+                for (Long hash : hashes) {
+                    inFlight.remove(hash);
+                    add(hash);
+                }
+            }
+        }
+
+        void discard(Long stepExecutionId) {
+            final List<Long> hashes = chunks.remove(stepExecutionId);
+            if (hashes != null) {
+                for (Long hash : hashes) {
+                    inFlight.remove(hash);
+                }
+            }
+        }
+
+        void add(long hash) {
+            filter.add(hash);
+            if (set != null) {
+                if (set.isFull()) {
+                    set = null;
+                } else {
+                    set.add(hash);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.demo.batch;
+
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.step.tasklet.TaskletStep;
+import org.springframework.batch.integration.chunk.ChunkHandler;
+import org.springframework.batch.integration.chunk.ChunkMessageChannelItemWriter;
+import org.springframework.batch.integration.chunk.RemoteChunkHandlerFactoryBean;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.integration.channel.DirectChannel;
+import org.springframework.integration.channel.ExecutorChannel;
+import org.springframework.integration.core.MessagingTemplate;
+import org.springframework.messaging.SubscribableChannel;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.Assert;
+
+/*
+    batch.import.remote-chunking.enabled turns step1 into a remote chunking manager: it only reads, every chunk
+    is sent as a ChunkRequest on remoteChunkRequests, workers run PersonItemProcessor and the writer on it and reply
+    with the counts of the chunk on remoteChunkReplies, which the manager adds to its step execution
+    chunkReplyRouter sorts the replies by job execution, so several imports can share the two channels
+
+    The two channels are the transport. By default they stay inside the JVM and local-workers threads consume
+    the requests, which scales processing across cores and is what RemoteChunkingIntegrationTests runs.
+    To spread the import across nodes, override remoteChunkRequests and remoteChunkReplies with channels bridged
+    to a message broker, e.g. Spring Integration JMS or AMQP adapters, and start the worker nodes with the same
+    configuration and local-workers > 0
+
+    Only the plain step1 is rewired, not partitionedStep1 and not the async processor variant
+ */
+@Configuration
+@ConditionalOnProperty(name = "batch.import.remote-chunking.enabled", havingValue = "true")
+public class RemoteChunkingConfiguration {
+    @Value("${batch.import.remote-chunking.local-workers:2}")
+    private int localWorkers;
+
+    @Value("${batch.import.remote-chunking.throttle-limit:6}")
+    private int throttleLimit;
+
+    @Value("${batch.import.remote-chunking.reply-timeout-millis:1000}")
+    private long replyTimeoutMillis;
+
+    @Value("${batch.import.remote-chunking.max-wait-timeouts:60}")
+    private int maxWaitTimeouts;
+
+    @Value("${batch.import.async.enabled:false}")
+    private boolean asyncProcessing;
+
+    /*
+        Without local workers nothing in this JVM subscribes, a broker adapter has to
+     */
+    @Bean
+    public SubscribableChannel remoteChunkRequests() {
+        return localWorkers > 0 ? new ExecutorChannel(remoteChunkWorkerExecutor()) : new DirectChannel();
+    }
+
+    @Bean
+    public DirectChannel remoteChunkReplies() {
+        DirectChannel replies = new DirectChannel();
+        replies.subscribe(chunkReplyRouter());
+        return replies;
+    }
+
+    @Bean
+    public ChunkReplyRouter chunkReplyRouter() {
+        return new ChunkReplyRouter();
+    }
+
+    /*
+        Sends the chunks read by step1, at most throttleLimit of them unanswered
+     */
+    @Bean
+    @StepScope
+    public ChunkMessageChannelItemWriter<Person> remoteChunkWriter(@Value("#{stepExecution.jobExecutionId}") Long jobExecutionId) {
+        MessagingTemplate messagingTemplate = new MessagingTemplate(remoteChunkRequests());
+        messagingTemplate.setReceiveTimeout(replyTimeoutMillis);
+        ChunkMessageChannelItemWriter<Person> chunkWriter = new ChunkMessageChannelItemWriter<>();
+        chunkWriter.setMessagingOperations(messagingTemplate);
+        chunkWriter.setReplyChannel(chunkReplyRouter().replyChannel(jobExecutionId));
+        chunkWriter.setThrottleLimit(throttleLimit);
+        chunkWriter.setMaxWaitTimeouts(maxWaitTimeouts);
+        return chunkWriter;
+    }
+
+    /*
+        Takes the processor and the writer out of step1 for the workers and leaves step1 sending chunks instead,
+        created eagerly so the manager is rewired even when no worker runs in this JVM
+     */
+    @Bean
+    public ChunkHandler<Person> remoteChunkHandler(@Qualifier("step1") Step step1) throws Exception {
+        Assert.state(!asyncProcessing, "Remote chunking does not support batch.import.async.enabled");
+        Assert.isInstanceOf(TaskletStep.class, step1, "Remote chunking requires a chunk oriented step1");
+        // registered before the chunk writer, so its afterStep runs after the writer has collected the last replies
+        ((TaskletStep) step1).registerStepExecutionListener(chunkReplyRouter());
+        RemoteChunkHandlerFactoryBean<Person> factory = new RemoteChunkHandlerFactoryBean<>();
+        factory.setStep((TaskletStep) step1);
+        factory.setChunkWriter(remoteChunkWriter(null));
+        return factory.getObject();
+    }
+
+    @Bean
+    public TransactionalChunkRequestHandler<Person> remoteChunkWorker(ChunkHandler<Person> remoteChunkHandler,
+                                                                      PlatformTransactionManager transactionManager) {
+        TransactionalChunkRequestHandler<Person> worker =
+                new TransactionalChunkRequestHandler<>(remoteChunkHandler, transactionManager, remoteChunkReplies());
+        if (localWorkers > 0) {
+            remoteChunkRequests().subscribe(worker);
+        }
+        return worker;
+    }
+
+    /*
+        The request queue needs no bound, the throttle limit of the manager keeps it short
+     */
+    @Bean
+    public TaskExecutor remoteChunkWorkerExecutor() {
+        ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+        taskExecutor.setCorePoolSize(Math.max(1, localWorkers));
+        taskExecutor.setMaxPoolSize(Math.max(1, localWorkers));
+        taskExecutor.setThreadNamePrefix("chunk-worker-");
+        return taskExecutor;
+    }
+}
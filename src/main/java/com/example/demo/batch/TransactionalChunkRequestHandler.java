@@ -0,0 +1,57 @@
+package com.example.demo.batch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.integration.chunk.ChunkHandler;
+import org.springframework.batch.integration.chunk.ChunkRequest;
+import org.springframework.batch.integration.chunk.ChunkResponse;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/*
+    The worker side of remote chunking: processes and writes one ChunkRequest in a transaction of its own
+    and sends the ChunkResponse with the counts of the chunk back to the manager
+    A failed chunk is rolled back and answered with an unsuccessful response, which fails the manager step
+
+    Broker listener containers run the handler inside their own transaction, the in-JVM transport has none,
+    so this handler opens it around the whole chunk
+ */
+public class TransactionalChunkRequestHandler<T> implements MessageHandler {
+    private static final Logger log = LoggerFactory.getLogger(TransactionalChunkRequestHandler.class);
+
+    private final ChunkHandler<T> chunkHandler;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final MessageChannel replyChannel;
+
+    public TransactionalChunkRequestHandler(ChunkHandler<T> chunkHandler, PlatformTransactionManager transactionManager, MessageChannel replyChannel) {
+        this.chunkHandler = chunkHandler;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.replyChannel = replyChannel;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void handleMessage(Message<?> message) {
+        ChunkRequest<T> request = (ChunkRequest<T>) message.getPayload();
+        ChunkResponse response = transactionTemplate.execute(status -> {
+            try {
+                ChunkResponse result = chunkHandler.handleChunk(request);
+                if (!result.isSuccessful()) {
+                    status.setRollbackOnly();
+                }
+                return result;
+            } catch (Exception e) {
+                log.error("Chunk {} of job execution {} failed - {}", request.getSequence(), request.getJobId(), e.getMessage(), e);
+                status.setRollbackOnly();
+                return new ChunkResponse(false, request.getSequence(), request.getJobId(), request.getStepContribution(), e.getMessage());
+            }
+        });
+        replyChannel.send(MessageBuilder.withPayload(response).build());
+    }
+}
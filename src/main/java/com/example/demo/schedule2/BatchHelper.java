@@ -1,16 +1,14 @@
 package com.example.demo.schedule2;
 
 import com.example.demo.schedule2.SpringBatchJobExecutor;
+import com.example.demo.schedule2.guard.OverlapPolicy;
 import org.quartz.JobDataMap;
-import org.quartz.JobExecutionContext;
-import org.quartz.SchedulerException;
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.JobParameter;
 import org.springframework.batch.core.JobParameters;
 import org.springframework.batch.core.JobParametersBuilder;
 import org.springframework.scheduling.quartz.CronTriggerFactoryBean;
 import org.springframework.scheduling.quartz.JobDetailFactoryBean;
-import org.springframework.util.StringUtils;
 
 import java.util.*;
 
@@ -20,7 +18,8 @@ public class BatchHelper {
     private static final String JOB_PARAMETERS_NAME_KEY_BY_TRIGGER = "triggerJobParameters";
     private static final String JOB_PARAMETERS_INSTANCE_ID_KEY = "InstanceId";
     private static final String JOB_PARAMETERS_TIMESTAMP_KEY = "timestamp";
-    private static final List<String> KEYWORDS = Arrays.asList(JOB_NAME_KEY, JOB_PARAMETERS_NAME_KEY_BY_CONFIG);
+    private static final String OVERLAP_POLICY_KEY = "overlapPolicy";
+    private static final List<String> KEYWORDS = Arrays.asList(JOB_NAME_KEY, JOB_PARAMETERS_NAME_KEY_BY_CONFIG, JOB_PARAMETERS_NAME_KEY_BY_TRIGGER, OVERLAP_POLICY_KEY);
 
     public static JobDetailFactoryBeanBuilder jobDetailFactoryBeanBuilder() {
         return new JobDetailFactoryBeanBuilder();
@@ -41,36 +40,74 @@ public class BatchHelper {
     }
 
     /**
-     * quartz JobDataMap 로부터 Spring Batch JobParameters 를 추출
-     * 이 때 JobDataMap 은 JobDetail 의 JobDataMap 과 Trigger 의 JobDataMap 이 합쳐진 JobDataMap.
+     * quartz JobDataMap 로부터 실행 중복 정책을 추출, 등록되지 않았으면 ALLOW
      *
+     * @param jobDataMap quartz JobDataMap
+     * @return overlap policy
+     */
+    public static OverlapPolicy getOverlapPolicy(JobDataMap jobDataMap) {
+        String overlapPolicy = jobDataMap.getString(OVERLAP_POLICY_KEY);
+        return overlapPolicy != null ? OverlapPolicy.valueOf(overlapPolicy) : OverlapPolicy.ALLOW;
+    }
+
+    /**
+     * quartz JobDataMap 로부터 JobDetail 에 등록된 Spring Batch JobParameters 를 추출
+     *
+     * @param jobDataMap quartz JobDataMap
+     * @return JobDetail 의 JobParameters, 없으면 null
+     */
+    static JobParameters getConfigJobParameters(JobDataMap jobDataMap) {
+        return (JobParameters) jobDataMap.get(JOB_PARAMETERS_NAME_KEY_BY_CONFIG);
+    }
+
+    /**
+     * quartz JobDataMap 로부터 Trigger 에 등록된 Spring Batch JobParameters 를 추출
+     *
+     * @param jobDataMap quartz JobDataMap
+     * @return Trigger 의 JobParameters, 없으면 null
+     */
+    static JobParameters getTriggerJobParameters(JobDataMap jobDataMap) {
+        return (JobParameters) jobDataMap.get(JOB_PARAMETERS_NAME_KEY_BY_TRIGGER);
+    }
+
+    /**
      * Spring Batch Job 은 Job Name 과 Job Parameter 로 동일 Job 을 확인하므로,
-     * 실행 시간을 적재하여 새로운 Job Parameter 를 생성하여 반환.
+     * 실행한 Scheduler 의 InstanceId 와 실행 시간을 덧붙여 새로운 Job Parameter 를 생성하여 반환.
      *
-     * @param context quartz JobExecutionContext
+     * @param parameters JobDetail 과 Trigger 의 Parameter 를 합친 결과
+     * @param instanceId quartz scheduler instance id
+     * @param timestamp 실행 시간
      * @return Spring Batch JobParameters
      */
-    public static JobParameters getJobParameters(JobExecutionContext context) throws SchedulerException {
-        JobDataMap jobDataMap = context.getMergedJobDataMap();
-        return new JobParametersBuilder(
-                getMergedJobParameters(
-                        (JobParameters) jobDataMap.get(JOB_PARAMETERS_NAME_KEY_BY_CONFIG),
-                        (JobParameters) jobDataMap.get(JOB_PARAMETERS_NAME_KEY_BY_TRIGGER)
-                )
-        )
-                .addString(JOB_PARAMETERS_INSTANCE_ID_KEY, context.getScheduler().getSchedulerInstanceId())
-                .addLong(JOB_PARAMETERS_TIMESTAMP_KEY, System.currentTimeMillis())
-                .toJobParameters();
+    static JobParameters getJobParameters(Map<String, JobParameter> parameters, String instanceId, long timestamp) {
+        // JobParameters 가 생성자에서 한 번 더 복사하므로 Map 은 하나만 만듦
+        Map<String, JobParameter> runtime = new LinkedHashMap<>((parameters.size() + 2) * 4 / 3 + 1);
+        runtime.putAll(parameters);
+        runtime.put(JOB_PARAMETERS_INSTANCE_ID_KEY, new JobParameter(instanceId));
+        runtime.put(JOB_PARAMETERS_TIMESTAMP_KEY, new JobParameter(timestamp));
+        return new JobParameters(runtime);
     }
 
-    private static JobParameters getMergedJobParameters(JobParameters jobParameters1, JobParameters jobParameters2) {
-        Map<String, JobParameter> merged = new HashMap<>();
-        merged.putAll(!StringUtils.isEmpty(jobParameters1)?jobParameters1.getParameters():Collections.EMPTY_MAP);
-        merged.putAll(!StringUtils.isEmpty(jobParameters2)?jobParameters2.getParameters():Collections.EMPTY_MAP);
-        return new JobParameters(merged);
+    /**
+     * Job Parameter 값의 type 에 맞게 JobParametersBuilder 에 추가.
+     * String, Long (Integer, Short, Byte 포함), Double (Float 포함), Date, JobParameter 를 지원.
+     */
+    private static void addParameter(JobParametersBuilder jobParametersBuilder, String key, Object value) {
+        if (value instanceof String) {
+            jobParametersBuilder.addString(key, (String) value);
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            jobParametersBuilder.addLong(key, ((Number) value).longValue());
+        } else if (value instanceof Float || value instanceof Double) {
+            jobParametersBuilder.addDouble(key, ((Number) value).doubleValue());
+        } else if (value instanceof Date) {
+            jobParametersBuilder.addDate(key, (Date) value);
+        } else if (value instanceof JobParameter) {
+            jobParametersBuilder.addParameter(key, (JobParameter) value);
+        } else {
+            throw new RuntimeException("Not Supported Parameter Type.");
+        }
     }
 
-
     /**
      * JobDetailFactoryBean Builder
      *
@@ -114,6 +151,16 @@ public class BatchHelper {
             return this;
         }
 
+        /**
+         * @param overlapPolicy 같은 Job 이 실행 중일 때 새로 발생한 Trigger 의 처리 정책 ( default ALLOW )
+         * @see OverlapPolicy
+         */
+        public JobDetailFactoryBeanBuilder overlapPolicy(OverlapPolicy overlapPolicy) {
+            // JDBC JobStore 에 직렬화되므로 이름으로 저장
+            this.map.put(OVERLAP_POLICY_KEY, overlapPolicy.name());
+            return this;
+        }
+
         /**
          * Spring Batch Job 으로 전달할 Job Parameter
          *
@@ -124,27 +171,10 @@ public class BatchHelper {
             if(KEYWORDS.contains(key)) {
                 throw new RuntimeException("Invalid Parameter");
             }
-            this.addParameter(key, value);
+            addParameter(this.jobParametersBuilder, key, value);
             return this;
         }
 
-        private void addParameter(String key, Object value) {
-            if (value instanceof String) {
-                this.jobParametersBuilder.addString(key, (String)value);
-                return;
-            } else if (value instanceof Float || value instanceof Double) {
-                this.jobParametersBuilder.addDouble(key, ((Number)value).doubleValue());
-            } else if (value instanceof Date) {
-                this.jobParametersBuilder.addDate(key, (Date) value);
-                return;
-            } else if (value instanceof JobParameter) {
-                this.jobParametersBuilder.addParameter(key, (JobParameter) value);
-                return;
-            }
-            throw new RuntimeException("Not Supported Parameter Type.");
-        }
-
-
         public JobDetailFactoryBean build() {
             if (!map.containsKey(JOB_NAME_KEY)) {
                 throw new RuntimeException("Not Found Job Name.");
@@ -175,6 +205,7 @@ public class BatchHelper {
         private String name;
         private String cronExpression;
         private JobDetailFactoryBean jobDetailFactoryBean;
+        private JobParametersBuilder jobParametersBuilder = new JobParametersBuilder();
 
         /**
          * 작성되지 않으면, bean Name 을 사용
@@ -202,6 +233,20 @@ public class BatchHelper {
             return this;
         }
 
+        /**
+         * 이 Trigger 로 실행될 때만 Spring Batch Job 으로 전달할 Job Parameter, 같은 key 는 JobDetail 의 Parameter 보다 우선
+         *
+         * @param key job parameter key
+         * @param value job parameter value
+         */
+        public CronTriggerFactoryBeanBuilder parameter(String key, Object value) {
+            if (KEYWORDS.contains(key)) {
+                throw new RuntimeException("Invalid Parameter");
+            }
+            addParameter(this.jobParametersBuilder, key, value);
+            return this;
+        }
+
         public CronTriggerFactoryBean build() {
             if (this.cronExpression == null || this.jobDetailFactoryBean == null) {
                 throw new RuntimeException("cronExpression and jobDetailFactoryBean is required.");
@@ -211,6 +256,7 @@ public class BatchHelper {
             cronTriggerFactoryBean.setName(this.name);
             cronTriggerFactoryBean.setCronExpression(this.cronExpression);
             cronTriggerFactoryBean.setJobDetail(this.jobDetailFactoryBean.getObject());
+            cronTriggerFactoryBean.setJobDataAsMap(Collections.singletonMap(JOB_PARAMETERS_NAME_KEY_BY_TRIGGER, this.jobParametersBuilder.toJobParameters()));
 
             return cronTriggerFactoryBean;
         }
@@ -0,0 +1,282 @@
+package com.example.demo.schedule2;
+
+import com.example.demo.schedule2.guard.JobExecutionGuard;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionException;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.configuration.JobLocator;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.launch.NoSuchJobException;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.util.Assert;
+
+import java.util.ArrayDeque;
+import java.util.Date;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Quartz Thread 는 실행 요청만 넘기고, Spring Batch Job 은 전용 TaskExecutor 에서 실행하는 Dispatcher.
+ *
+ * Job 별 동시 실행 수는 maxConcurrentPerJob 으로 제한하고, 초과한 요청은 Job 별 대기열에서 들어온 순서대로 실행.
+ * 실행 중 + 대기 중인 전체 요청 수는 capacity 로 제한. 가득 차면 Quartz Thread 를 offerTimeout 만큼 대기시키고 (back-pressure),
+ * 그래도 자리가 나지 않으면 실행을 포기하고 misfire 로 기록.
+ *
+ * batch.launch.queue.wait   예정된 발생 시간부터 Job 이 실제로 시작할 때까지의 대기 시간
+ * batch.launch.misfires     rejected (대기열 초과로 실행 포기) / late (misfireThreshold 보다 늦게 시작)
+ * batch.launch.active       실행 중인 Job 수
+ * batch.launch.pending      실행을 기다리는 Job 수
+ *
+ * JobExecutionGuard 의 실행 권한을 가진 요청은 Job 이 끝난 뒤 남겨둔 Trigger 를 같은 Thread 에서 이어서 실행.
+ *
+ * Quartz 입장에서는 요청을 넘긴 시점에 Job 이 끝나므로, requestsRecovery 에 의한 복구는 대기열에 들어간 요청까지만 보장.
+ */
+@Slf4j
+public class BatchJobDispatcher implements InitializingBean {
+    private final JobLauncher jobLauncher;
+
+    private final JobLocator jobLocator;
+
+    private final TaskExecutor taskExecutor;
+
+    private final MeterRegistry registry;
+
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+
+    private final AtomicInteger active = new AtomicInteger();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private int maxConcurrentPerJob = 1;
+
+    private int capacity = 100;
+
+    private long offerTimeoutMillis = 1000;
+
+    private long misfireThresholdMillis = 60000;
+
+    private JobExecutionGuard jobExecutionGuard;
+
+    private Semaphore permits;
+
+    private volatile boolean accepting = true;
+
+    public BatchJobDispatcher(JobLauncher jobLauncher, JobLocator jobLocator, TaskExecutor taskExecutor, MeterRegistry registry) {
+        this.jobLauncher = jobLauncher;
+        this.jobLocator = jobLocator;
+        this.taskExecutor = taskExecutor;
+        this.registry = registry;
+    }
+
+    /**
+     * @param maxConcurrentPerJob 같은 Job 을 동시에 실행할 수 있는 수 ( default 1 )
+     */
+    public void setMaxConcurrentPerJob(int maxConcurrentPerJob) {
+        this.maxConcurrentPerJob = maxConcurrentPerJob;
+    }
+
+    /**
+     * @param capacity 실행 중인 요청과 대기 중인 요청을 합한 최대 수 ( default 100 )
+     */
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * @param offerTimeoutMillis 대기열이 가득 찼을 때 Quartz Thread 가 자리를 기다리는 시간 ( default 1000 )
+     */
+    public void setOfferTimeoutMillis(long offerTimeoutMillis) {
+        this.offerTimeoutMillis = offerTimeoutMillis;
+    }
+
+    /**
+     * @param misfireThresholdMillis 예정 시간보다 이 이상 늦게 시작하면 late misfire 로 기록 ( default 60000, quartz.properties 와 동일 )
+     */
+    public void setMisfireThresholdMillis(long misfireThresholdMillis) {
+        this.misfireThresholdMillis = misfireThresholdMillis;
+    }
+
+    /**
+     * @param jobExecutionGuard guarded 로 넘어온 요청이 끝날 때 남겨둔 Trigger 를 가져올 Guard
+     */
+    public void setJobExecutionGuard(JobExecutionGuard jobExecutionGuard) {
+        this.jobExecutionGuard = jobExecutionGuard;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        Assert.isTrue(maxConcurrentPerJob > 0, "maxConcurrentPerJob must be positive");
+        Assert.isTrue(capacity > 0, "capacity must be positive");
+        permits = new Semaphore(capacity);
+        Gauge.builder("batch.launch.active", active, AtomicInteger::get).register(registry);
+        Gauge.builder("batch.launch.pending", this, dispatcher -> dispatcher.inFlight.get() - dispatcher.active.get()).register(registry);
+    }
+
+    /**
+     * Job 실행 요청을 대기열에 넣고 바로 반환.
+     *
+     * @param jobName           Spring Batch Job Name
+     * @param jobParameters     Spring Batch JobParameters
+     * @param scheduledFireTime Trigger 의 예정된 발생 시간, 없으면 현재 시간
+     * @return 대기열에 들어가면 true, 자리가 없어서 실행을 포기하면 false
+     * @throws NoSuchJobException JobRegistry 에 없는 Job
+     */
+    public boolean dispatch(String jobName, JobParameters jobParameters, Date scheduledFireTime) throws NoSuchJobException {
+        return dispatch(jobName, jobParameters, scheduledFireTime, false);
+    }
+
+    /**
+     * @param guarded 호출한 쪽이 JobExecutionGuard 의 실행 권한을 가지고 있으면 true, 실행이 끝나면 권한을 이어받아 처리
+     * @see #dispatch(String, JobParameters, Date)
+     */
+    public boolean dispatch(String jobName, JobParameters jobParameters, Date scheduledFireTime, boolean guarded) throws NoSuchJobException {
+        Assert.state(!guarded || jobExecutionGuard != null, "guarded launches require a JobExecutionGuard");
+        final Job job = jobLocator.getJob(jobName);
+        try {
+            if (!accepting || !permits.tryAcquire(offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                misfire(jobName, "rejected");
+                return false;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            misfire(jobName, "rejected");
+            return false;
+        }
+        inFlight.incrementAndGet();
+        final long scheduledTime = scheduledFireTime != null ? scheduledFireTime.getTime() : System.currentTimeMillis();
+        lanes.computeIfAbsent(jobName, Lane::new).offer(new Launch(job, jobParameters, scheduledTime, guarded));
+        return true;
+    }
+
+    /**
+     * 새 요청을 더 받지 않고, 이미 받은 요청이 모두 끝날 때까지 대기.
+     * Quartz Scheduler 를 먼저 종료한 뒤 호출.
+     */
+    public void shutdown() {
+        accepting = false;
+        log.info("Waiting for {} dispatched batch jobs.", inFlight.get());
+        permits.acquireUninterruptibly(capacity);
+        permits.release(capacity);
+    }
+
+    private void submit(Lane lane, Launch launch) {
+        try {
+            taskExecutor.execute(() -> run(lane, launch));
+        } catch (TaskRejectedException e) {
+            log.error("[{}] launch rejected by the task executor - {}", lane.jobName, e.getMessage());
+            misfire(lane.jobName, "rejected");
+            if (launch.guarded) {
+                jobExecutionGuard.abandon(lane.jobName);
+            }
+            release(lane);
+        }
+    }
+
+    private void run(Lane lane, Launch launch) {
+        final long waited = Math.max(0, System.currentTimeMillis() - launch.scheduledTime);
+        Timer.builder("batch.launch.queue.wait").tags("job", lane.jobName).register(registry).record(waited, TimeUnit.MILLISECONDS);
+        if (waited > misfireThresholdMillis) {
+            misfire(lane.jobName, "late");
+        }
+
+        active.incrementAndGet();
+        try {
+            if (launch.guarded) {
+                jobExecutionGuard.runGuarded(lane.jobName, launch.parameters, next -> launch(lane.jobName, launch.job, next));
+            } else {
+                launch(lane.jobName, launch.job, launch.parameters);
+            }
+        } finally {
+            active.decrementAndGet();
+            release(lane);
+        }
+    }
+
+    private void launch(String jobName, Job job, JobParameters jobParameters) {
+        try {
+            log.info("[{}] started.", jobName);
+            final JobExecution execution = jobLauncher.run(job, jobParameters);
+            log.info("[{}] completed. - {}", jobName, execution.getStatus());
+        } catch (JobExecutionException | RuntimeException e) {
+            log.error("job execution exception! - {}", e.getMessage(), e);
+        }
+    }
+
+    private void release(Lane lane) {
+        inFlight.decrementAndGet();
+        permits.release();
+        lane.complete();
+    }
+
+    private void misfire(String jobName, String reason) {
+        log.warn("[{}] misfired - {}", jobName, reason);
+        Counter.builder("batch.launch.misfires").tags("job", jobName, "reason", reason).register(registry).increment();
+    }
+
+    /**
+     * Job 별 실행 수와 대기열
+     */
+    private class Lane {
+        private final String jobName;
+
+        private final Deque<Launch> waiting = new ArrayDeque<>();
+
+        private int running;
+
+        Lane(String jobName) {
+            this.jobName = jobName;
+        }
+
+        void offer(Launch launch) {
+            synchronized (this) {
+                if (running >= maxConcurrentPerJob) {
+                    waiting.add(launch);
+                    return;
+                }
+                running++;
+            }
+            submit(this, launch);
+        }
+
+        void complete() {
+            final Launch next;
+            synchronized (this) {
+                next = waiting.poll();
+                if (next == null) {
+                    running--;
+                    return;
+                }
+            }
+            submit(this, next);
+        }
+    }
+
+    private static class Launch {
+        private final Job job;
+
+        private final JobParameters parameters;
+
+        private final long scheduledTime;
+
+        private final boolean guarded;
+
+        Launch(Job job, JobParameters parameters, long scheduledTime, boolean guarded) {
+            this.job = job;
+            this.parameters = parameters;
+            this.scheduledTime = scheduledTime;
+            this.guarded = guarded;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.demo.schedule2;
+
+import org.quartz.JobDataMap;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobKey;
+import org.quartz.SchedulerException;
+import org.quartz.Trigger;
+import org.quartz.TriggerKey;
+import org.quartz.listeners.SchedulerListenerSupport;
+import org.springframework.batch.core.JobParameter;
+import org.springframework.batch.core.JobParameters;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * JobDetail 과 Trigger 의 JobParameters 를 합친 결과를 Trigger 마다 보관하는 Cache.
+ *
+ * Trigger 가 발생할 때는 보관된 Parameter 에 InstanceId 와 timestamp 만 덧붙이므로 (BatchHelper#getJobParameters),
+ * 발생마다 Map 하나와 JobParameters 하나는 여전히 만들고, 줄어드는 것은 두 JobParameters 를 합치는 비용뿐.
+ * 원본 JobParameters 를 equals 로 비교하여 재사용하므로, 발생할 때마다 JobDataMap 을 새로 읽는 JDBC JobStore 에서도
+ * 내용이 같으면 재사용. 비교는 Parameter 수만큼의 조회뿐이고, 다시 만들 때의 Map 복사와 할당은 생기지 않음.
+ *
+ * Scheduler 의 SchedulerListener 로 등록하여 Trigger / JobDetail 이 제거되면 함께 제거.
+ * Cluster 모드에서 다른 Node 가 제거한 Trigger 는 알 수 없으므로 이 Node 에서 발생했던 Trigger 수만큼 남을 수 있음.
+ */
+public class JobParametersTemplates extends SchedulerListenerSupport {
+    private final Map<TriggerKey, JobParametersTemplate> templates = new ConcurrentHashMap<>();
+
+    /**
+     * quartz JobExecutionContext 로부터 Spring Batch JobParameters 를 생성.
+     * JobDataMap 은 JobDetail 의 JobDataMap 과 Trigger 의 JobDataMap 이 합쳐진 JobDataMap.
+     *
+     * @param context quartz JobExecutionContext
+     * @return Spring Batch JobParameters
+     */
+    public JobParameters getJobParameters(JobExecutionContext context) throws SchedulerException {
+        JobDataMap jobDataMap = context.getMergedJobDataMap();
+        JobParameters configJobParameters = BatchHelper.getConfigJobParameters(jobDataMap);
+        JobParameters triggerJobParameters = BatchHelper.getTriggerJobParameters(jobDataMap);
+
+        TriggerKey triggerKey = context.getTrigger().getKey();
+        JobParametersTemplate template = templates.get(triggerKey);
+        if (template == null || !template.isBuiltFrom(configJobParameters, triggerJobParameters)) {
+            template = new JobParametersTemplate(context.getJobDetail().getKey(), configJobParameters, triggerJobParameters);
+            templates.put(triggerKey, template);
+        }
+        return BatchHelper.getJobParameters(template.parameters, context.getScheduler().getSchedulerInstanceId(), System.currentTimeMillis());
+    }
+
+    int size() {
+        return templates.size();
+    }
+
+    Map<String, JobParameter> parameters(TriggerKey triggerKey) {
+        return templates.get(triggerKey).parameters;
+    }
+
+    @Override
+    public void jobUnscheduled(TriggerKey triggerKey) {
+        templates.remove(triggerKey);
+    }
+
+    @Override
+    public void triggerFinalized(Trigger trigger) {
+        templates.remove(trigger.getKey());
+    }
+
+    @Override
+    public void jobDeleted(JobKey jobKey) {
+        templates.values().removeIf(template -> template.jobKey.equals(jobKey));
+    }
+
+    @Override
+    public void schedulingDataCleared() {
+        templates.clear();
+    }
+
+    @Override
+    public void schedulerShutdown() {
+        templates.clear();
+    }
+
+    /**
+     * JobDetail 과 Trigger 의 JobParameters 를 합친 변경 불가능한 Parameter 목록.
+     * Trigger 의 Parameter 가 JobDetail 의 Parameter 보다 우선.
+     */
+    private static final class JobParametersTemplate {
+        private final JobKey jobKey;
+        private final JobParameters configJobParameters;
+        private final JobParameters triggerJobParameters;
+        private final Map<String, JobParameter> parameters;
+
+        JobParametersTemplate(JobKey jobKey, JobParameters configJobParameters, JobParameters triggerJobParameters) {
+            this.jobKey = jobKey;
+            this.configJobParameters = configJobParameters;
+            this.triggerJobParameters = triggerJobParameters;
+            Map<String, JobParameter> merged = new LinkedHashMap<>();
+            if (configJobParameters != null) {
+                merged.putAll(configJobParameters.getParameters());
+            }
+            if (triggerJobParameters != null) {
+                merged.putAll(triggerJobParameters.getParameters());
+            }
+            this.parameters = Collections.unmodifiableMap(merged);
+        }
+
+        boolean isBuiltFrom(JobParameters configJobParameters, JobParameters triggerJobParameters) {
+            return Objects.equals(this.configJobParameters, configJobParameters)
+                    && Objects.equals(this.triggerJobParameters, triggerJobParameters);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.demo.schedule2;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.quartz.JobListener;
+import org.quartz.Trigger;
+import org.quartz.TriggerListener;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Quartz 의 Trigger 발생 지연과 Job 실행 시간을 Micrometer 로 기록하는 Listener.
+ *
+ * quartz.trigger.fire.delay  예정된 발생 시간(scheduledFireTime) 과 실제 발생 시간(fireTime) 의 차이
+ * quartz.job.execution       Job 실행 시간, 결과(success / failure) 로 구분
+ * quartz.trigger.misfires    misfire 된 Trigger 수
+ *
+ * SchedulerFactoryBean 의 global JobListener, TriggerListener 로 등록.
+ */
+public class QuartzMetricsListener implements JobListener, TriggerListener {
+    private final MeterRegistry registry;
+
+    public QuartzMetricsListener(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public String getName() {
+        return QuartzMetricsListener.class.getSimpleName();
+    }
+
+    @Override
+    public void jobToBeExecuted(JobExecutionContext context) {
+        if (context.getScheduledFireTime() == null) {
+            return;
+        }
+        Timer.builder("quartz.trigger.fire.delay")
+                .tags("job", context.getJobDetail().getKey().toString(), "trigger", context.getTrigger().getKey().toString())
+                .register(registry)
+                .record(context.getFireTime().getTime() - context.getScheduledFireTime().getTime(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void jobExecutionVetoed(JobExecutionContext context) {
+    }
+
+    @Override
+    public void jobWasExecuted(JobExecutionContext context, JobExecutionException jobException) {
+        Timer.builder("quartz.job.execution")
+                .tags("job", context.getJobDetail().getKey().toString(), "result", jobException == null ? "success" : "failure")
+                .register(registry)
+                .record(context.getJobRunTime(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void triggerFired(Trigger trigger, JobExecutionContext context) {
+    }
+
+    @Override
+    public boolean vetoJobExecution(Trigger trigger, JobExecutionContext context) {
+        return false;
+    }
+
+    @Override
+    public void triggerMisfired(Trigger trigger) {
+        Counter.builder("quartz.trigger.misfires")
+                .tags("job", trigger.getJobKey().toString(), "trigger", trigger.getKey().toString())
+                .register(registry)
+                .increment();
+    }
+
+    @Override
+    public void triggerComplete(Trigger trigger, JobExecutionContext context, Trigger.CompletedExecutionInstruction triggerInstructionCode) {
+    }
+}
@@ -1,21 +1,24 @@
 package com.example.demo.schedule2;
 
+import com.example.demo.schedule2.guard.JobExecutionGuard;
+import com.example.demo.schedule2.guard.OverlapPolicy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.quartz.JobDataMap;
 import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
 import org.quartz.SchedulerException;
+import org.springframework.batch.core.Job;
 import org.springframework.batch.core.JobParameters;
-import org.springframework.batch.core.JobParametersInvalidException;
 import org.springframework.batch.core.configuration.JobLocator;
 import org.springframework.batch.core.launch.JobLauncher;
-import org.springframework.batch.core.launch.NoSuchJobException;
-import org.springframework.batch.core.repository.JobExecutionAlreadyRunningException;
-import org.springframework.batch.core.repository.JobInstanceAlreadyCompleteException;
-import org.springframework.batch.core.repository.JobRestartException;
 import org.springframework.beans.factory.annotation.Autowired;
 
 /**
  * Quartz Schedule 에 등록된 Job 을 Spring Batch Job 으로 실행시키기 위한 Executor class.
+ * BatchJobDispatcher 가 등록되어 있으면 (batch.launcher.async=true) 실행 요청만 넘기고 바로 반환.
+ * JobDetail 에 OverlapPolicy 가 등록되어 있으면 같은 Job 이 실행 중일 때 JobExecutionGuard 로 Trigger 를 버리거나 하나만 남겨둠.
  */
 @Slf4j
 public class SpringBatchJobExecutor implements org.quartz.Job {
@@ -25,6 +28,18 @@ public class SpringBatchJobExecutor implements org.quartz.Job {
     @Autowired
     private JobLauncher jobLauncher;
 
+    @Autowired
+    private JobExecutionGuard jobExecutionGuard;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JobParametersTemplates jobParametersTemplates;
+
+    @Autowired(required = false)
+    private BatchJobDispatcher batchJobDispatcher;
+
     /**
      * Quartz Job 으로 들어온 Parameter 를 Spring Batch JobParameter 로 변환하여 Spring Batch Job 실행
      *
@@ -34,13 +49,38 @@ public class SpringBatchJobExecutor implements org.quartz.Job {
     @Override
     public void execute(JobExecutionContext context) throws JobExecutionException {
         try {
-            String jobName = BatchHelper.getJobName(context.getMergedJobDataMap());
-            log.info("[{}] started.", jobName);
+            JobDataMap jobDataMap = context.getMergedJobDataMap();
+            String jobName = BatchHelper.getJobName(jobDataMap);
+            Job job = jobLocator.getJob(jobName);
+            JobParameters jobParameters = jobParametersTemplates.getJobParameters(context);
+
+            OverlapPolicy overlapPolicy = BatchHelper.getOverlapPolicy(jobDataMap);
+            boolean guarded = overlapPolicy != OverlapPolicy.ALLOW;
+            if (guarded && !jobExecutionGuard.tryStart(jobName, overlapPolicy, jobParameters)) {
+                log.info("[{}] is already running. - {}", jobName, overlapPolicy);
+                Counter.builder("batch.launch.overlaps").tags("job", jobName, "policy", overlapPolicy.name()).register(meterRegistry).increment();
+                return;
+            }
 
-            JobParameters jobParameters = BatchHelper.getJobParameters(context);
-            jobLauncher.run(jobLocator.getJob(jobName), jobParameters);
+            if (batchJobDispatcher != null) {
+                if (!batchJobDispatcher.dispatch(jobName, jobParameters, context.getScheduledFireTime(), guarded)) {
+                    if (guarded) {
+                        jobExecutionGuard.abandon(jobName);
+                    }
+                    throw new JobExecutionException("[" + jobName + "] launch queue is full.");
+                }
+                log.info("[{}] dispatched.", jobName);
+                return;
+            }
+
+            log.info("[{}] started.", jobName);
+            if (guarded) {
+                jobExecutionGuard.runGuarded(jobName, jobParameters, next -> jobLauncher.run(job, next));
+            } else {
+                jobLauncher.run(job, jobParameters);
+            }
             log.info("[{}] completed.", jobName);
-        } catch (NoSuchJobException | JobExecutionAlreadyRunningException | JobRestartException | JobInstanceAlreadyCompleteException | JobParametersInvalidException | SchedulerException e) {
+        } catch (org.springframework.batch.core.JobExecutionException | SchedulerException e) {
             log.error("job execution exception! - {}", e.getMessage());
             log.error("{}", e.getCause());
             throw new JobExecutionException();
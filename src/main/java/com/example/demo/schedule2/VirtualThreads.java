@@ -0,0 +1,62 @@
+package com.example.demo.schedule2;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Java 21 의 Virtual Thread 를 만드는 ThreadFactory 를 제공.
+ *
+ * 기본 build 는 Java 8 을 대상으로 하므로 Thread.ofVirtual() 을 직접 호출할 수 없어서, reflection 으로 한 번만 찾아서 사용.
+ * Java 21 이상에서 실행할 때만 사용할 수 있고, 그 외에는 IllegalStateException.
+ * (java21 profile 로 build 하면 Java 21 bytecode 로 compile 되지만 호출 방식은 동일)
+ */
+public final class VirtualThreads {
+    private static final Method OF_VIRTUAL;
+
+    private static final Method NAME;
+
+    private static final Method FACTORY;
+
+    static {
+        Method ofVirtual = null;
+        Method name = null;
+        Method factory = null;
+        try {
+            final Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            name = builderType.getMethod("name", String.class, long.class);
+            factory = builderType.getMethod("factory");
+        } catch (ReflectiveOperationException e) {
+            // Java 21 미만
+        }
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        FACTORY = factory;
+    }
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * @return 현재 JVM 에서 Virtual Thread 를 사용할 수 있는지 여부
+     */
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * @param prefix thread name prefix, prefix0, prefix1 ... 순서로 이름을 붙임
+     * @return Virtual Thread 를 만드는 ThreadFactory
+     */
+    public static ThreadFactory threadFactory(String prefix) {
+        if (!isSupported()) {
+            throw new IllegalStateException("Virtual threads require Java 21, running on " + System.getProperty("java.version"));
+        }
+        try {
+            final Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), prefix, 0L);
+            return (ThreadFactory) FACTORY.invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Unable to create a virtual thread factory", e);
+        }
+    }
+}
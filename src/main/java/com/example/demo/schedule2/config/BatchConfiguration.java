@@ -1,5 +1,13 @@
 package com.example.demo.schedule2.config;
 
+import com.example.demo.schedule2.BatchJobDispatcher;
+import com.example.demo.schedule2.JobParametersTemplates;
+import com.example.demo.schedule2.QuartzMetricsListener;
+import com.example.demo.schedule2.VirtualThreads;
+import com.example.demo.schedule2.guard.InMemoryJobExecutionGuard;
+import com.example.demo.schedule2.guard.JdbcJobExecutionGuard;
+import com.example.demo.schedule2.guard.JobExecutionGuard;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.quartz.SchedulerException;
 import org.quartz.Trigger;
@@ -7,21 +15,33 @@ import org.quartz.spi.JobFactory;
 import org.quartz.spi.TriggerFiredBundle;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.configuration.JobLocator;
 import org.springframework.batch.core.configuration.JobRegistry;
 import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
 import org.springframework.batch.core.configuration.support.JobRegistryBeanPostProcessor;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.quartz.QuartzDataSource;
 import org.springframework.context.SmartLifecycle;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.scheduling.quartz.CronTriggerFactoryBean;
 import org.springframework.scheduling.quartz.SchedulerFactoryBean;
 import org.springframework.scheduling.quartz.SpringBeanJobFactory;
 
 import javax.sql.DataSource;
 import java.util.List;
+import java.util.Properties;
 
 @Configuration
 @ConditionalOnExpression("'${using.spring.autowiring}'=='complete'")
@@ -62,18 +82,41 @@ public class BatchConfiguration {
 
     /**
      * Scheduler 전체를 관리하는 Manager.
+     * batch.scheduler.clustered 가 true 이면 quartz-cluster.properties 를 quartz.properties 위에 덮어써서
+     * 같은 DB 를 바라보는 여러 Node 가 Trigger 를 나누어 실행하는 Cluster 모드로 동작.
+     * batch.scheduler.virtual-threads 가 true 이면 quartz.properties 의 SimpleThreadPool 대신 Job 마다 Virtual Thread 를 사용. (Java 21)
+     * batch.datasource.separate-pools 가 true 이면 JobStore 는 Quartz 전용 Connection Pool (@QuartzDataSource) 을 사용.
      *
+     * @param quartzDataSource Quartz 전용 DataSource, 없으면 기본 DataSource 사용
      * @return the scheduler factory bean
      * @throws Exception the exception
      */
     @Bean
-    public SchedulerFactoryBean schedulerFactoryBean(DataSource dataSource, JobFactory jobFactory, Trigger[] registryTrigger) throws Exception {
+    public SchedulerFactoryBean schedulerFactoryBean(DataSource dataSource, @QuartzDataSource ObjectProvider<DataSource> quartzDataSource, JobFactory jobFactory, Trigger[] registryTrigger, QuartzMetricsListener quartzMetricsListener,
+                                                     JobParametersTemplates jobParametersTemplates,
+                                                     @Value("${batch.scheduler.clustered:false}") boolean clustered,
+                                                     @Value("${batch.scheduler.virtual-threads:false}") boolean virtualThreads) throws Exception {
         SchedulerFactoryBean schedulerFactoryBean = new SchedulerFactoryBean();
 
         schedulerFactoryBean.setSchedulerName("Scheduler-2");
 
         //Register QuartzProperties
-        schedulerFactoryBean.setConfigLocation(new ClassPathResource("quartz.properties"));
+        Properties quartzProperties = PropertiesLoaderUtils.loadProperties(new ClassPathResource("quartz.properties"));
+
+        //Cluster 모드: JDBC JobStore 의 isClustered, Row Lock, Check-in 주기 설정
+        if (clustered) {
+            quartzProperties.putAll(PropertiesLoaderUtils.loadProperties(new ClassPathResource("quartz-cluster.properties")));
+        }
+
+        //Virtual Thread 모드: Quartz ThreadPool 을 Virtual Thread 기반 TaskExecutor 로 교체
+        //threadPool 설정이 남아 있으면 setTaskExecutor 설정을 덮어쓰므로 제거
+        if (virtualThreads) {
+            schedulerFactoryBean.setTaskExecutor(new SimpleAsyncTaskExecutor(VirtualThreads.threadFactory("quartz-")));
+            quartzProperties.stringPropertyNames().stream()
+                    .filter(key -> key.startsWith("org.quartz.threadPool."))
+                    .forEach(quartzProperties::remove);
+        }
+        schedulerFactoryBean.setQuartzProperties(quartzProperties);
 
         //Register JobFactory
         schedulerFactoryBean.setJobFactory(jobFactory);
@@ -85,15 +128,112 @@ public class BatchConfiguration {
         schedulerFactoryBean.setOverwriteExistingJobs(true);
 
         //Schedule 관리를 Spring Datasource 에 위임
-        schedulerFactoryBean.setDataSource(dataSource);
+        schedulerFactoryBean.setDataSource(quartzDataSource.getIfAvailable(() -> dataSource));
 
         //Register Triggers
         schedulerFactoryBean.setTriggers(registryTrigger);
 
+        //Trigger 발생 지연, Job 실행 시간 Metric 수집
+        schedulerFactoryBean.setGlobalJobListeners(quartzMetricsListener);
+        schedulerFactoryBean.setGlobalTriggerListeners(quartzMetricsListener);
+
+        //Trigger / JobDetail 이 제거되면 JobParameters Template 도 제거
+        schedulerFactoryBean.setSchedulerListeners(jobParametersTemplates);
+
 
         return schedulerFactoryBean;
     }
 
+    /**
+     * Quartz Trigger / Job 의 Metric 을 MeterRegistry 에 기록하는 Listener
+     *
+     * @param meterRegistry micrometer registry
+     * @return quartz metrics listener
+     */
+    @Bean
+    public QuartzMetricsListener quartzMetricsListener(MeterRegistry meterRegistry) {
+        return new QuartzMetricsListener(meterRegistry);
+    }
+
+    /**
+     * Trigger 마다 JobDetail 과 Trigger 의 JobParameters 를 합쳐 둔 Cache.
+     * Application Context 마다 만들어지므로 Context 가 다시 시작되면 (devtools) 함께 버려짐.
+     *
+     * @return job parameters templates
+     */
+    @Bean
+    public JobParametersTemplates jobParametersTemplates() {
+        return new JobParametersTemplates();
+    }
+
+    /**
+     * Spring Batch Job 을 Quartz Thread 밖에서 실행하는 Dispatcher.
+     * batch.launcher.async 가 true 일 때만 등록되며, 등록되지 않으면 SpringBatchJobExecutor 가 Quartz Thread 에서 직접 실행.
+     *
+     * @return batch job dispatcher
+     */
+    @Bean
+    @ConditionalOnProperty(name = "batch.launcher.async", havingValue = "true")
+    public BatchJobDispatcher batchJobDispatcher(JobLauncher jobLauncher, JobLocator jobLocator, MeterRegistry meterRegistry, JobExecutionGuard jobExecutionGuard,
+                                                 @Qualifier("batchLaunchTaskExecutor") TaskExecutor batchLaunchTaskExecutor,
+                                                 @Value("${batch.launcher.threads:4}") int threads,
+                                                 @Value("${batch.launcher.max-concurrent-per-job:1}") int maxConcurrentPerJob,
+                                                 @Value("${batch.launcher.queue-capacity:100}") int queueCapacity,
+                                                 @Value("${batch.launcher.offer-timeout-millis:1000}") long offerTimeoutMillis,
+                                                 @Value("${batch.launcher.misfire-threshold-millis:60000}") long misfireThresholdMillis) {
+        BatchJobDispatcher batchJobDispatcher = new BatchJobDispatcher(jobLauncher, jobLocator, batchLaunchTaskExecutor, meterRegistry);
+        batchJobDispatcher.setMaxConcurrentPerJob(maxConcurrentPerJob);
+        batchJobDispatcher.setCapacity(threads + queueCapacity);
+        batchJobDispatcher.setOfferTimeoutMillis(offerTimeoutMillis);
+        batchJobDispatcher.setMisfireThresholdMillis(misfireThresholdMillis);
+        batchJobDispatcher.setJobExecutionGuard(jobExecutionGuard);
+        return batchJobDispatcher;
+    }
+
+    /**
+     * 같은 Job 의 실행이 겹칠 때 OverlapPolicy 를 적용하는 Guard.
+     * 단일 Node 는 memory 로 충분하고, Cluster 모드에서는 모든 Node 가 BATCH_JOB_GUARD table 로 실행 권한을 공유.
+     * Trigger 발생 시점에 실행되므로 Quartz 와 같은 Connection Pool 을 사용.
+     *
+     * @param quartzDataSource Quartz 전용 DataSource, 없으면 기본 DataSource 사용
+     * @param leaseMillis Cluster 모드에서 죽은 Node 의 실행 권한을 다른 Node 가 가져가기까지의 시간
+     * @return job execution guard
+     */
+    @Bean
+    public JobExecutionGuard jobExecutionGuard(DataSource dataSource, @QuartzDataSource ObjectProvider<DataSource> quartzDataSource,
+                                               @Value("${batch.scheduler.clustered:false}") boolean clustered,
+                                               @Value("${batch.scheduler.guard-lease-millis:60000}") long leaseMillis) {
+        if (!clustered) {
+            return new InMemoryJobExecutionGuard();
+        }
+        JdbcJobExecutionGuard jobExecutionGuard = new JdbcJobExecutionGuard(quartzDataSource.getIfAvailable(() -> dataSource));
+        jobExecutionGuard.setLeaseMillis(leaseMillis);
+        return jobExecutionGuard;
+    }
+
+    /**
+     * Spring Batch Job 전용 Thread Pool.
+     * 대기열의 크기는 BatchJobDispatcher 가 제한하므로 Thread Pool 의 Queue 는 제한하지 않음.
+     * batch.scheduler.virtual-threads 가 true 이면 Pool 없이 Job 마다 Virtual Thread 를 사용. (Java 21)
+     *
+     * @param threads 동시에 실행할 수 있는 Job 수, Virtual Thread 모드에서는 대기열 크기 계산에만 사용
+     * @param virtualThreads Virtual Thread 사용 여부
+     * @return batch launch task executor
+     */
+    @Bean
+    @ConditionalOnProperty(name = "batch.launcher.async", havingValue = "true")
+    public TaskExecutor batchLaunchTaskExecutor(@Value("${batch.launcher.threads:4}") int threads,
+                                                @Value("${batch.scheduler.virtual-threads:false}") boolean virtualThreads) {
+        if (virtualThreads) {
+            return new SimpleAsyncTaskExecutor(VirtualThreads.threadFactory("batch-"));
+        }
+        ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+        taskExecutor.setCorePoolSize(threads);
+        taskExecutor.setMaxPoolSize(threads);
+        taskExecutor.setThreadNamePrefix("batch-");
+        return taskExecutor;
+    }
+
     @Bean
     public Trigger[] registryTrigger(List<CronTriggerFactoryBean> cronTriggerFactoryBeanList) {
         return cronTriggerFactoryBeanList.stream().map(CronTriggerFactoryBean::getObject).toArray(Trigger[]::new);
@@ -105,11 +245,14 @@ public class BatchConfiguration {
      * Quartz 의 자체 Shutdown Plugin 을 사용하면 Spring 의 Datasource 가 먼저 Close 되므로,
      * Spring 에게 Shutdown 동작을 위임하여, 상위에서 컨트롤.
      *
+     * BatchJobDispatcher 가 있으면 Quartz 종료 후 Dispatch 된 Job 이 모두 끝날 때까지 대기.
+     *
      * @param schedulerFactoryBean quartz schedulerFactoryBean.
+     * @param batchJobDispatcher batch job dispatcher, async 모드가 아니면 없음.
      * @return SmartLifecycle
      */
     @Bean
-    public SmartLifecycle gracefulShutdownHookForQuartz(SchedulerFactoryBean schedulerFactoryBean) {
+    public SmartLifecycle gracefulShutdownHookForQuartz(SchedulerFactoryBean schedulerFactoryBean, ObjectProvider<BatchJobDispatcher> batchJobDispatcher) {
         return new SmartLifecycle() {
             private boolean isRunning = false;
             @Override
@@ -145,6 +288,7 @@ public class BatchConfiguration {
                         log.error("Unable to shutdown the Quartz scheduler.", ex);
                     }
                 }
+                batchJobDispatcher.ifAvailable(BatchJobDispatcher::shutdown);
             }
 
             @Override
@@ -0,0 +1,44 @@
+package com.example.demo.schedule2.guard;
+
+import org.springframework.batch.core.JobParameters;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 단일 Node 용 JobExecutionGuard.
+ * Trigger 발생과 실행 종료 때만 호출되므로 하나의 lock 으로 충분.
+ */
+public class InMemoryJobExecutionGuard implements JobExecutionGuard {
+    private final Set<String> running = new HashSet<>();
+
+    private final Map<String, JobParameters> pending = new HashMap<>();
+
+    @Override
+    public synchronized boolean tryStart(String jobName, OverlapPolicy policy, JobParameters jobParameters) {
+        if (running.add(jobName)) {
+            return true;
+        }
+        if (policy == OverlapPolicy.COALESCE || (policy == OverlapPolicy.QUEUE_ONE && !pending.containsKey(jobName))) {
+            pending.put(jobName, jobParameters);
+        }
+        return false;
+    }
+
+    @Override
+    public synchronized JobParameters finish(String jobName) {
+        final JobParameters next = pending.remove(jobName);
+        if (next == null) {
+            running.remove(jobName);
+        }
+        return next;
+    }
+
+    @Override
+    public synchronized void abandon(String jobName) {
+        pending.remove(jobName);
+        running.remove(jobName);
+    }
+}
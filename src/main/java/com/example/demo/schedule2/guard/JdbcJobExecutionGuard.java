@@ -0,0 +1,134 @@
+package com.example.demo.schedule2.guard;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+import org.springframework.util.SerializationUtils;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cluster 용 JobExecutionGuard. 같은 DB 를 바라보는 모든 Node 가 BATCH_JOB_GUARD 의 row 하나로 Job 별 실행 권한을 공유.
+ *
+ * 실행 권한    JOB_NAME 의 row 를 INSERT 한 Node 가 가짐 (Primary Key 충돌이면 다른 Node 가 실행 중)
+ * 남겨둔 Trigger  PENDING 에 직렬화된 JobParameters 로 저장, 권한을 가진 Node 가 끝날 때 가져가서 실행
+ * 권한 반납    남겨둔 Trigger 가 없으면 row 를 DELETE. SELECT ... FOR UPDATE 로 PENDING 갱신과의 경합을 막음
+ *
+ * Node 가 죽으면 row 가 남으므로 권한에 lease 를 둠. 권한을 가진 Node 는 lease 의 1/3 마다 LOCKED_AT 을 갱신하고,
+ * lease 가 지난 row 는 다른 Node 가 가져감.
+ * Trigger 발생과 실행 종료 때 한두 개의 statement 만 실행하므로, Quartz 의 TRIGGER_ACCESS lock 과 경합하지 않음.
+ */
+@Slf4j
+public class JdbcJobExecutionGuard implements JobExecutionGuard, InitializingBean, DisposableBean {
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final String owner = UUID.randomUUID().toString();
+
+    private long leaseMillis = 60000;
+
+    private ScheduledExecutorService heartbeat;
+
+    public JdbcJobExecutionGuard(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    /**
+     * @param leaseMillis 갱신되지 않은 실행 권한을 다른 Node 가 가져가기까지의 시간 ( default 60000 )
+     */
+    public void setLeaseMillis(long leaseMillis) {
+        this.leaseMillis = leaseMillis;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        Assert.isTrue(leaseMillis >= 3, "leaseMillis must be at least 3");
+        heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "job-guard-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeat.scheduleWithFixedDelay(this::renew, leaseMillis / 3, leaseMillis / 3, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        heartbeat.shutdownNow();
+    }
+
+    @Override
+    public boolean tryStart(String jobName, OverlapPolicy policy, JobParameters jobParameters) {
+        while (true) {
+            final long now = System.currentTimeMillis();
+            try {
+                jdbcTemplate.update("INSERT INTO BATCH_JOB_GUARD (JOB_NAME, OWNER, LOCKED_AT) VALUES (?, ?, ?)", jobName, owner, now);
+                return true;
+            } catch (DuplicateKeyException e) {
+                // 다른 실행이 권한을 가지고 있음
+            }
+            if (jdbcTemplate.update("UPDATE BATCH_JOB_GUARD SET OWNER = ?, LOCKED_AT = ?, PENDING = NULL WHERE JOB_NAME = ? AND LOCKED_AT < ?",
+                    owner, now, jobName, now - leaseMillis) > 0) {
+                log.warn("[{}] took over an expired execution guard.", jobName);
+                return true;
+            }
+            if (policy == OverlapPolicy.SKIP) {
+                return false;
+            }
+            final String sql = policy == OverlapPolicy.QUEUE_ONE
+                    ? "UPDATE BATCH_JOB_GUARD SET PENDING = ? WHERE JOB_NAME = ? AND PENDING IS NULL"
+                    : "UPDATE BATCH_JOB_GUARD SET PENDING = ? WHERE JOB_NAME = ?";
+            if (jdbcTemplate.update(sql, SerializationUtils.serialize(jobParameters), jobName) > 0 || policy == OverlapPolicy.QUEUE_ONE && exists(jobName)) {
+                return false;
+            }
+            // 그 사이에 권한이 반납됨, 다시 시도
+        }
+    }
+
+    @Override
+    public JobParameters finish(String jobName) {
+        return transactionTemplate.execute(status -> {
+            final List<byte[]> pending = jdbcTemplate.query("SELECT PENDING FROM BATCH_JOB_GUARD WHERE JOB_NAME = ? AND OWNER = ? FOR UPDATE",
+                    (rs, rowNum) -> rs.getBytes(1), jobName, owner);
+            if (pending.isEmpty()) {
+                log.warn("[{}] execution guard was taken over by another node.", jobName);
+                return null;
+            }
+            if (pending.get(0) == null) {
+                jdbcTemplate.update("DELETE FROM BATCH_JOB_GUARD WHERE JOB_NAME = ? AND OWNER = ?", jobName, owner);
+                return null;
+            }
+            jdbcTemplate.update("UPDATE BATCH_JOB_GUARD SET PENDING = NULL, LOCKED_AT = ? WHERE JOB_NAME = ?", System.currentTimeMillis(), jobName);
+            return (JobParameters) SerializationUtils.deserialize(pending.get(0));
+        });
+    }
+
+    @Override
+    public void abandon(String jobName) {
+        jdbcTemplate.update("DELETE FROM BATCH_JOB_GUARD WHERE JOB_NAME = ? AND OWNER = ?", jobName, owner);
+    }
+
+    private boolean exists(String jobName) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM BATCH_JOB_GUARD WHERE JOB_NAME = ?", Integer.class, jobName) > 0;
+    }
+
+    private void renew() {
+        try {
+            jdbcTemplate.update("UPDATE BATCH_JOB_GUARD SET LOCKED_AT = ? WHERE OWNER = ?", System.currentTimeMillis(), owner);
+        } catch (RuntimeException e) {
+            log.error("Unable to renew the job execution guards - {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.demo.schedule2.guard;
+
+import org.springframework.batch.core.JobParameters;
+
+/**
+ * Job 별로 하나의 실행만 허용하고, 실행 중에 발생한 Trigger 를 OverlapPolicy 에 따라 버리거나 하나만 남겨두는 Guard.
+ *
+ * tryStart 가 true 를 반환한 쪽이 실행 권한을 가지며, 실행이 끝날 때마다 finish 를 호출.
+ * finish 가 남겨둔 JobParameters 를 반환하면 권한을 유지한 채 이어서 실행하고, null 이면 권한을 반납.
+ * 실행하지 못하고 포기하는 경우에는 abandon 으로 권한과 남겨둔 Trigger 를 함께 반납.
+ */
+public interface JobExecutionGuard {
+
+    /**
+     * @param jobName       Spring Batch Job Name
+     * @param policy        이미 실행 중일 때의 정책, ALLOW 는 사용하지 않음
+     * @param jobParameters 이번 Trigger 의 JobParameters, 남겨둘 때 사용
+     * @return 실행 권한을 얻으면 true, 버리거나 남겨두면 false
+     */
+    boolean tryStart(String jobName, OverlapPolicy policy, JobParameters jobParameters);
+
+    /**
+     * @param jobName Spring Batch Job Name
+     * @return 이어서 실행할 JobParameters, 없으면 null 이고 실행 권한을 반납
+     */
+    JobParameters finish(String jobName);
+
+    /**
+     * @param jobName Spring Batch Job Name
+     */
+    void abandon(String jobName);
+
+    /**
+     * 실행 권한을 얻은 쪽에서 호출. 남겨둔 Trigger 가 없을 때까지 이어서 실행.
+     * 실행이 실패하면 권한과 남겨둔 Trigger 를 반납하고 예외를 그대로 던짐.
+     *
+     * @param jobName       Spring Batch Job Name
+     * @param jobParameters 처음 실행할 JobParameters
+     * @param launch        한 번의 실행
+     */
+    default <E extends Exception> void runGuarded(String jobName, JobParameters jobParameters, Launch<E> launch) throws E {
+        JobParameters next = jobParameters;
+        while (next != null) {
+            try {
+                launch.run(next);
+            } catch (Exception e) {
+                abandon(jobName);
+                throw e;
+            }
+            next = finish(jobName);
+        }
+    }
+
+    @FunctionalInterface
+    interface Launch<E extends Exception> {
+        void run(JobParameters jobParameters) throws E;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.demo.schedule2.guard;
+
+import java.util.Locale;
+
+/**
+ * 같은 Job 이 실행 중일 때 새로 발생한 Trigger 를 어떻게 처리할지 정하는 정책.
+ *
+ * ALLOW      제한 없이 겹쳐서 실행 (기존 동작)
+ * SKIP       실행 중이면 버림
+ * QUEUE_ONE  실행 중이면 처음 발생한 하나만 남겨두고, 끝나면 바로 실행. 그 뒤에 발생한 Trigger 는 버림
+ * COALESCE   실행 중이면 마지막에 발생한 하나만 남겨두고, 끝나면 바로 실행
+ */
+public enum OverlapPolicy {
+    ALLOW, SKIP, QUEUE_ONE, COALESCE;
+
+    /**
+     * 설정 파일 형식의 이름도 허용. (예: queue-one)
+     */
+    public static OverlapPolicy of(String name) {
+        return valueOf(name.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+    }
+}
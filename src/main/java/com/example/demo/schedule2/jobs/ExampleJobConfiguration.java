@@ -2,6 +2,7 @@ package com.example.demo.schedule2.jobs;
 
 
 import com.example.demo.schedule2.BatchHelper;
+import com.example.demo.schedule2.guard.OverlapPolicy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.batch.core.Job;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -20,6 +21,7 @@ public class ExampleJobConfiguration {
     public JobDetailFactoryBean exampleJobSchedule() {
         return BatchHelper.jobDetailFactoryBeanBuilder()
                 .job(importUserJob)
+                .overlapPolicy(OverlapPolicy.COALESCE)
                 .build();
     }
 
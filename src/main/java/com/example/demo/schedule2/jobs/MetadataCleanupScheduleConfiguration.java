@@ -0,0 +1,41 @@
+package com.example.demo.schedule2.jobs;
+
+
+import com.example.demo.schedule2.BatchHelper;
+import com.example.demo.schedule2.guard.OverlapPolicy;
+import org.springframework.batch.core.Job;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.quartz.CronTriggerFactoryBean;
+import org.springframework.scheduling.quartz.JobDetailFactoryBean;
+
+/**
+ * Spring Batch metadata 정리 Job 의 Schedule.
+ * 정리 중에 다음 Trigger 가 발생하면 건너뜀 (지난 실행이 끝나면 지울 것이 남아있지 않음)
+ */
+@Configuration
+public class MetadataCleanupScheduleConfiguration {
+    @Autowired
+    public Job metadataCleanupJob;
+
+    @Value("${batch.housekeeping.cron:0 30 3 * * ?}")
+    private String cronExpression;
+
+    @Bean
+    public JobDetailFactoryBean metadataCleanupJobSchedule() {
+        return BatchHelper.jobDetailFactoryBeanBuilder()
+                .job(metadataCleanupJob)
+                .overlapPolicy(OverlapPolicy.SKIP)
+                .build();
+    }
+
+    @Bean
+    CronTriggerFactoryBean metadataCleanupJobTrigger() {
+        return BatchHelper.cronTriggerFactoryBeanBuilder()
+                .cronExpression(cronExpression)
+                .jobDetailFactoryBean(metadataCleanupJobSchedule())
+                .build();
+    }
+}
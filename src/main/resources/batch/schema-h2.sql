@@ -0,0 +1,97 @@
+-- Spring Batch metadata schema for H2, derived from org/springframework/batch/core/schema-h2.sql
+--
+-- Like quartz/tables_h2.sql this version only creates what is missing, so it can run on every startup.
+--
+-- The bundled script only has the primary keys and the unique key on (JOB_NAME, JOB_KEY). Every scheduled
+-- run adds a job instance, and the hot repository queries then scan whole tables:
+--   BATCH_JOB_INST_NAME_IDX   JobExplorer.getJobInstances / findJobInstancesByName, by name ordered by id
+--   BATCH_JOB_EXEC_INST_IDX   getLastJobExecution and findJobExecutions, by instance ordered by create time
+--   BATCH_JOB_EXEC_END_IDX    findRunningJobExecutions (END_TIME IS NULL) and the retention scan of the metadata cleanup job
+--   BATCH_JOB_PARAMS_EXEC_IDX getJobParameters, once per loaded execution
+--   BATCH_STEP_EXEC_JOB_IDX   getStepExecutions and getLastStepExecution (restart), by execution and step name
+
+CREATE TABLE IF NOT EXISTS BATCH_JOB_INSTANCE  (
+	JOB_INSTANCE_ID BIGINT IDENTITY NOT NULL PRIMARY KEY ,
+	VERSION BIGINT ,
+	JOB_NAME VARCHAR(100) NOT NULL,
+	JOB_KEY VARCHAR(32) NOT NULL,
+	constraint JOB_INST_UN unique (JOB_NAME, JOB_KEY)
+) ;
+
+CREATE TABLE IF NOT EXISTS BATCH_JOB_EXECUTION  (
+	JOB_EXECUTION_ID BIGINT IDENTITY NOT NULL PRIMARY KEY ,
+	VERSION BIGINT  ,
+	JOB_INSTANCE_ID BIGINT NOT NULL,
+	CREATE_TIME TIMESTAMP NOT NULL,
+	START_TIME TIMESTAMP DEFAULT NULL ,
+	END_TIME TIMESTAMP DEFAULT NULL ,
+	STATUS VARCHAR(10) ,
+	EXIT_CODE VARCHAR(2500) ,
+	EXIT_MESSAGE VARCHAR(2500) ,
+	LAST_UPDATED TIMESTAMP,
+	JOB_CONFIGURATION_LOCATION VARCHAR(2500) NULL,
+	constraint JOB_INST_EXEC_FK foreign key (JOB_INSTANCE_ID)
+	references BATCH_JOB_INSTANCE(JOB_INSTANCE_ID)
+) ;
+
+CREATE TABLE IF NOT EXISTS BATCH_JOB_EXECUTION_PARAMS  (
+	JOB_EXECUTION_ID BIGINT NOT NULL ,
+	TYPE_CD VARCHAR(6) NOT NULL ,
+	KEY_NAME VARCHAR(100) NOT NULL ,
+	STRING_VAL VARCHAR(250) ,
+	DATE_VAL TIMESTAMP DEFAULT NULL ,
+	LONG_VAL BIGINT ,
+	DOUBLE_VAL DOUBLE PRECISION ,
+	IDENTIFYING CHAR(1) NOT NULL ,
+	constraint JOB_EXEC_PARAMS_FK foreign key (JOB_EXECUTION_ID)
+	references BATCH_JOB_EXECUTION(JOB_EXECUTION_ID)
+) ;
+
+CREATE TABLE IF NOT EXISTS BATCH_STEP_EXECUTION  (
+	STEP_EXECUTION_ID BIGINT IDENTITY NOT NULL PRIMARY KEY ,
+	VERSION BIGINT NOT NULL,
+	STEP_NAME VARCHAR(100) NOT NULL,
+	JOB_EXECUTION_ID BIGINT NOT NULL,
+	START_TIME TIMESTAMP NOT NULL ,
+	END_TIME TIMESTAMP DEFAULT NULL ,
+	STATUS VARCHAR(10) ,
+	COMMIT_COUNT BIGINT ,
+	READ_COUNT BIGINT ,
+	FILTER_COUNT BIGINT ,
+	WRITE_COUNT BIGINT ,
+	READ_SKIP_COUNT BIGINT ,
+	WRITE_SKIP_COUNT BIGINT ,
+	PROCESS_SKIP_COUNT BIGINT ,
+	ROLLBACK_COUNT BIGINT ,
+	EXIT_CODE VARCHAR(2500) ,
+	EXIT_MESSAGE VARCHAR(2500) ,
+	LAST_UPDATED TIMESTAMP,
+	constraint JOB_EXEC_STEP_FK foreign key (JOB_EXECUTION_ID)
+	references BATCH_JOB_EXECUTION(JOB_EXECUTION_ID)
+) ;
+
+CREATE TABLE IF NOT EXISTS BATCH_STEP_EXECUTION_CONTEXT  (
+	STEP_EXECUTION_ID BIGINT NOT NULL PRIMARY KEY,
+	SHORT_CONTEXT VARCHAR(2500) NOT NULL,
+	SERIALIZED_CONTEXT LONGVARCHAR ,
+	constraint STEP_EXEC_CTX_FK foreign key (STEP_EXECUTION_ID)
+	references BATCH_STEP_EXECUTION(STEP_EXECUTION_ID)
+) ;
+
+CREATE TABLE IF NOT EXISTS BATCH_JOB_EXECUTION_CONTEXT  (
+	JOB_EXECUTION_ID BIGINT NOT NULL PRIMARY KEY,
+	SHORT_CONTEXT VARCHAR(2500) NOT NULL,
+	SERIALIZED_CONTEXT LONGVARCHAR ,
+	constraint JOB_EXEC_CTX_FK foreign key (JOB_EXECUTION_ID)
+	references BATCH_JOB_EXECUTION(JOB_EXECUTION_ID)
+) ;
+
+CREATE SEQUENCE IF NOT EXISTS BATCH_STEP_EXECUTION_SEQ;
+CREATE SEQUENCE IF NOT EXISTS BATCH_JOB_EXECUTION_SEQ;
+CREATE SEQUENCE IF NOT EXISTS BATCH_JOB_SEQ;
+
+CREATE INDEX IF NOT EXISTS BATCH_JOB_INST_NAME_IDX ON BATCH_JOB_INSTANCE (JOB_NAME, JOB_INSTANCE_ID);
+CREATE INDEX IF NOT EXISTS BATCH_JOB_EXEC_INST_IDX ON BATCH_JOB_EXECUTION (JOB_INSTANCE_ID, CREATE_TIME);
+CREATE INDEX IF NOT EXISTS BATCH_JOB_EXEC_END_IDX ON BATCH_JOB_EXECUTION (END_TIME);
+CREATE INDEX IF NOT EXISTS BATCH_JOB_PARAMS_EXEC_IDX ON BATCH_JOB_EXECUTION_PARAMS (JOB_EXECUTION_ID);
+CREATE INDEX IF NOT EXISTS BATCH_STEP_EXEC_JOB_IDX ON BATCH_STEP_EXECUTION (JOB_EXECUTION_ID, STEP_NAME);
@@ -3,5 +3,23 @@ DROP TABLE people IF EXISTS;
 CREATE TABLE people  (
     person_id BIGINT IDENTITY NOT NULL PRIMARY KEY,
     first_name VARCHAR(20),
-    last_name VARCHAR(20)
-);
\ No newline at end of file
+    last_name VARCHAR(20),
+    natural_key VARCHAR(41),
+    content_hash BIGINT
+);
+
+CREATE UNIQUE INDEX people_natural_key_idx ON people (natural_key);
+
+-- PersonDeduplicationProcessor looks people up by name once its key set overflowed
+CREATE INDEX people_name_idx ON people (first_name, last_name);
+
+DROP TABLE import_watermark IF EXISTS;
+
+CREATE TABLE import_watermark  (
+    file VARCHAR(1000) NOT NULL PRIMARY KEY,
+    file_size BIGINT NOT NULL,
+    last_modified BIGINT NOT NULL,
+    content_length BIGINT NOT NULL,
+    content_crc BIGINT NOT NULL,
+    record_count INT NOT NULL
+);
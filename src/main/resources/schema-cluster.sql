@@ -0,0 +1,26 @@
+CREATE TABLE IF NOT EXISTS people  (
+    person_id BIGINT IDENTITY NOT NULL PRIMARY KEY,
+    first_name VARCHAR(20),
+    last_name VARCHAR(20),
+    natural_key VARCHAR(41),
+    content_hash BIGINT
+);
+
+-- a people table created before the incremental import, its rows have no natural_key and are not matched by it
+ALTER TABLE people ADD COLUMN IF NOT EXISTS natural_key VARCHAR(41);
+ALTER TABLE people ADD COLUMN IF NOT EXISTS content_hash BIGINT;
+
+CREATE UNIQUE INDEX IF NOT EXISTS people_natural_key_idx ON people (natural_key);
+
+-- PersonDeduplicationProcessor looks people up by name once its key set overflowed
+CREATE INDEX IF NOT EXISTS people_name_idx ON people (first_name, last_name);
+
+CREATE TABLE IF NOT EXISTS import_watermark  (
+    file VARCHAR(1000) NOT NULL PRIMARY KEY,
+    file_size BIGINT NOT NULL,
+    last_modified BIGINT NOT NULL,
+    content_length BIGINT NOT NULL,
+    content_crc BIGINT NOT NULL,
+    record_count INT NOT NULL
+);
+
@@ -0,0 +1,152 @@
+package com.example.demo.batch;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.repeat.RepeatContext;
+import org.springframework.batch.repeat.context.RepeatContextSupport;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class AdaptiveChunkCompletionPolicyTests {
+
+    private static final String START_NANOS_ATTRIBUTE = AdaptiveChunkCompletionPolicy.class.getName() + ".startNanos";
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    // chunks of 100 to 200 ms are on target
+    private final AdaptiveChunkCompletionPolicy policy = new AdaptiveChunkCompletionPolicy(registry, 100, 10, 1000, 100, 200);
+
+    private final JobExecution jobExecution = MetaDataInstanceFactory.createJobExecution(1L);
+
+    @After
+    public void close() {
+        StepSynchronizationManager.close();
+    }
+
+    @Test
+    public void growsFastChunksUpToTwice() {
+        StepExecution step = step("step1", 1L);
+
+        assertEquals(100, chunk(step, 100, 10));
+
+        assertEquals(200, policy.getChunkSize(step));
+        assertEquals(200, startedSize(step));
+    }
+
+    @Test
+    public void shrinksSlowChunksDownToHalf() {
+        StepExecution step = step("step1", 1L);
+
+        chunk(step, 100, 1000);
+
+        assertEquals(50, policy.getChunkSize(step));
+    }
+
+    @Test
+    public void keepsTheSizeOnTarget() {
+        StepExecution step = step("step1", 1L);
+
+        chunk(step, 100, 150);
+
+        assertEquals(100, policy.getChunkSize(step));
+    }
+
+    @Test
+    public void ignoresPartialChunks() {
+        StepExecution step = step("step1", 1L);
+
+        chunk(step, 60, 1000);
+
+        assertEquals(100, policy.getChunkSize(step));
+    }
+
+    @Test
+    public void sizesPartitionsSeparately() {
+        StepExecution fast = step("workerStep:partition0", 1L);
+        StepExecution slow = step("workerStep:partition1", 2L);
+
+        chunk(fast, 100, 10);
+        // full for its own size, though smaller than the size the other partition moved to
+        chunk(slow, 100, 1000);
+        chunk(slow, 50, 1000);
+
+        assertEquals(200, policy.getChunkSize(fast));
+        assertEquals(25, policy.getChunkSize(slow));
+    }
+
+    @Test
+    public void halvesTheSizeAfterAFailedChunk() {
+        StepExecution step = step("step1", 1L);
+
+        policy.afterChunkError(new ChunkContext(new StepContext(step)));
+
+        assertEquals(50, policy.getChunkSize(step));
+    }
+
+    @Test
+    public void publishesTheChosenSize() {
+        StepExecution step = step("workerStep:partition0", 1L);
+
+        chunk(step, 100, 10);
+
+        assertEquals(200, registry.get("batch.chunk.size").tag("job", "job").tag("step", "workerStep").gauge().value(), 0);
+        assertEquals(200, step.getExecutionContext().getInt(AdaptiveChunkCompletionPolicy.CHUNK_SIZE_KEY));
+    }
+
+    @Test
+    public void restartsWithThePreviousSize() {
+        StepExecution previous = step("step1", 1L);
+        chunk(previous, 100, 10);
+        chunk(previous, 200, 10);
+        policy.afterStep(previous);
+
+        StepExecution restarted = MetaDataInstanceFactory.createStepExecution(jobExecution, "step1", 2L);
+        restarted.setExecutionContext(previous.getExecutionContext());
+        policy.beforeStep(restarted);
+
+        assertEquals(400, startedSize(restarted));
+    }
+
+    private StepExecution step(String stepName, long id) {
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution(jobExecution, stepName, id);
+        policy.beforeStep(stepExecution);
+        return stepExecution;
+    }
+
+    /*
+        Runs a chunk of the step that reads items and takes millis, returns the size it was started with
+     */
+    private int chunk(StepExecution stepExecution, int items, long millis) {
+        int size = startedSize(stepExecution);
+        ChunkContext chunkContext = new ChunkContext(new StepContext(stepExecution));
+        policy.beforeChunk(chunkContext);
+        chunkContext.setAttribute(START_NANOS_ATTRIBUTE, System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(millis));
+        stepExecution.setReadCount(stepExecution.getReadCount() + items);
+        policy.afterChunk(chunkContext);
+        return size;
+    }
+
+    private int startedSize(StepExecution stepExecution) {
+        StepSynchronizationManager.register(stepExecution);
+        try {
+            RepeatContext context = policy.start(null);
+            int size = 0;
+            while (!policy.isComplete(context)) {
+                ((RepeatContextSupport) context).increment();
+                size++;
+            }
+            return size;
+        } finally {
+            StepSynchronizationManager.close();
+        }
+    }
+}
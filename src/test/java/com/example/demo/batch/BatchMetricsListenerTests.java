@@ -0,0 +1,111 @@
+package com.example.demo.batch;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.integration.async.AsyncItemProcessor;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BatchMetricsListenerTests {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final BatchMetricsListener listener = new BatchMetricsListener(registry);
+
+    private final StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution("step1:partition0", 1L);
+
+    private final ChunkContext chunkContext = new ChunkContext(new StepContext(stepExecution));
+
+    @After
+    public void close() {
+        StepSynchronizationManager.close();
+    }
+
+    @Test
+    public void timesProcessingOnTheStepThread() throws Exception {
+        listener.beforeChunk(chunkContext);
+        listener.beforeProcess("item");
+        TimeUnit.MILLISECONDS.sleep(50);
+        listener.afterProcess("item", "item");
+        listener.afterChunk(chunkContext);
+
+        assertEquals(1, processTimer().count());
+        assertTrue(processTimer().totalTime(TimeUnit.MILLISECONDS) >= 50);
+    }
+
+    @Test
+    public void timesAsyncProcessingOnTheProcessorThreads() throws Exception {
+        StepSynchronizationManager.register(stepExecution);
+        AsyncItemProcessor<String, String> asyncProcessor = asyncProcessor(sleeping(50));
+
+        listener.beforeChunk(chunkContext);
+        listener.beforeProcess("item");
+        Future<String> result = asyncProcessor.process("item");
+        listener.afterProcess("item", result);
+        assertEquals("item", result.get());
+        listener.afterChunk(chunkContext);
+
+        assertEquals(1, processTimer().count());
+        assertTrue(processTimer().totalTime(TimeUnit.MILLISECONDS) >= 50);
+    }
+
+    @Test
+    public void dropsTheAsyncProcessingOfRolledBackChunks() throws Exception {
+        StepSynchronizationManager.register(stepExecution);
+        AsyncItemProcessor<String, String> asyncProcessor = asyncProcessor(sleeping(50));
+
+        listener.beforeChunk(chunkContext);
+        asyncProcessor.process("item").get();
+        listener.afterChunkError(chunkContext);
+
+        listener.beforeChunk(chunkContext);
+        asyncProcessor.process("item").get();
+        listener.afterChunk(chunkContext);
+
+        assertTrue(processTimer().totalTime(TimeUnit.MILLISECONDS) < 100);
+    }
+
+    @Test
+    public void doesNotTimeWithoutAStepContext() throws Exception {
+        assertEquals("item", listener.timed(sleeping(0)).process("item"));
+
+        StepSynchronizationManager.register(stepExecution);
+        listener.beforeChunk(chunkContext);
+        listener.beforeProcess("item");
+        listener.afterProcess("item", "item");
+        listener.afterChunk(chunkContext);
+
+        assertEquals(1, processTimer().count());
+    }
+
+    private AsyncItemProcessor<String, String> asyncProcessor(ItemProcessor<String, String> delegate) {
+        AsyncItemProcessor<String, String> asyncProcessor = new AsyncItemProcessor<>();
+        asyncProcessor.setDelegate(listener.timed(delegate));
+        asyncProcessor.setTaskExecutor(new SimpleAsyncTaskExecutor());
+        return asyncProcessor;
+    }
+
+    private static ItemProcessor<String, String> sleeping(long millis) {
+        return item -> {
+            TimeUnit.MILLISECONDS.sleep(millis);
+            return item;
+        };
+    }
+
+    private Timer processTimer() {
+        return registry.get("batch.chunk.process").tags("job", "job", "step", "step1").timer();
+    }
+}
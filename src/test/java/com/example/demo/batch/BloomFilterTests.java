@@ -0,0 +1,53 @@
+package com.example.demo.batch;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertTrue;
+
+public class BloomFilterTests {
+
+    @Test
+    public void neverMissesAnAddedKey() {
+        BloomFilter filter = new BloomFilter(10_000, 10);
+        Random random = new Random(1);
+        long[] keys = new long[10_000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = random.nextLong();
+            filter.add(keys[i]);
+        }
+        for (long key : keys) {
+            assertTrue(filter.mightContain(key));
+        }
+    }
+
+    @Test
+    public void keepsFalsePositivesNearTheExpectedRate() {
+        BloomFilter filter = new BloomFilter(100_000, 10);
+        for (long key = 0; key < 100_000; key++) {
+            filter.add(IncrementalPersonItemWriter.contentHash(new Person("FIRST" + key, "LAST")));
+        }
+
+        int falsePositives = 0;
+        for (long key = 100_000; key < 200_000; key++) {
+            if (filter.mightContain(IncrementalPersonItemWriter.contentHash(new Person("FIRST" + key, "LAST")))) {
+                falsePositives++;
+            }
+        }
+
+        // about 1% at 10 bits per key, the filter is rounded up to a power of two bits
+        assertTrue("false positives " + falsePositives, falsePositives < 2_000);
+    }
+
+    @Test
+    public void sizesToAPowerOfTwo() {
+        assertTrue(new BloomFilter(0, 10).sizeInBytes() >= Long.BYTES);
+        assertTrue(new BloomFilter(1000, 10).sizeInBytes() * 8 >= 10_000);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsTooManyKeys() {
+        new BloomFilter(Long.MAX_VALUE / 64, 64);
+    }
+}
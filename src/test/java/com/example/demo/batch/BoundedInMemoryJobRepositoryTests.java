@@ -0,0 +1,169 @@
+package com.example.demo.batch;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.explore.support.JobExplorerFactoryBean;
+import org.springframework.batch.core.repository.JobExecutionAlreadyRunningException;
+import org.springframework.batch.core.repository.JobInstanceAlreadyCompleteException;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.support.JobRepositoryFactoryBean;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class BoundedInMemoryJobRepositoryTests {
+
+    private final BoundedInMemoryJobRepository repository = new BoundedInMemoryJobRepository();
+
+    private EmbeddedDatabase database;
+
+    @After
+    public void close() throws Exception {
+        repository.destroy();
+        if (database != null) {
+            database.shutdown();
+        }
+    }
+
+    @Test
+    public void restartFindsTheLastStepExecution() throws Exception {
+        repository.afterPropertiesSet();
+        JobParameters jobParameters = parameters(1L);
+
+        JobExecution first = repository.createJobExecution("job", jobParameters);
+        first.getExecutionContext().putString("resume", "here");
+        StepExecution failedStep = step(first, "step1");
+        finish(first, BatchStatus.FAILED);
+
+        JobExecution restart = repository.createJobExecution("job", jobParameters);
+
+        assertEquals(first.getJobInstance(), restart.getJobInstance());
+        assertEquals("here", restart.getExecutionContext().getString("resume"));
+        assertSame(failedStep, repository.getLastStepExecution(restart.getJobInstance(), "step1"));
+        assertEquals(1, repository.getStepExecutionCount(restart.getJobInstance(), "step1"));
+    }
+
+    @Test(expected = JobInstanceAlreadyCompleteException.class)
+    public void rejectsACompletedInstance() throws Exception {
+        repository.afterPropertiesSet();
+        finish(repository.createJobExecution("job", parameters(1L)), BatchStatus.COMPLETED);
+
+        repository.createJobExecution("job", parameters(1L));
+    }
+
+    @Test(expected = JobExecutionAlreadyRunningException.class)
+    public void rejectsARunningInstance() throws Exception {
+        repository.afterPropertiesSet();
+        JobExecution running = repository.createJobExecution("job", parameters(1L));
+        running.setStatus(BatchStatus.STARTED);
+
+        repository.createJobExecution("job", parameters(1L));
+    }
+
+    @Test
+    public void evictionKeepsRunningExecutions() throws Exception {
+        repository.setMaxExecutionsPerJob(1);
+        repository.afterPropertiesSet();
+        JobExecution running = repository.createJobExecution("job", parameters(1L));
+        running.setStatus(BatchStatus.STARTED);
+
+        finish(repository.createJobExecution("job", parameters(2L)), BatchStatus.COMPLETED);
+        finish(repository.createJobExecution("job", parameters(3L)), BatchStatus.COMPLETED);
+
+        assertSame(running, repository.getLastJobExecution("job", parameters(1L)));
+        assertNull(repository.getLastJobExecution("job", parameters(2L)));
+        assertNotNull(repository.getLastJobExecution("job", parameters(3L)));
+    }
+
+    @Test
+    public void evictedInstancesCanRunAgain() throws Exception {
+        repository.setMaxExecutionsPerJob(1);
+        repository.afterPropertiesSet();
+        finish(repository.createJobExecution("job", parameters(1L)), BatchStatus.COMPLETED);
+        finish(repository.createJobExecution("job", parameters(2L)), BatchStatus.COMPLETED);
+
+        JobExecution again = repository.createJobExecution("job", parameters(1L));
+
+        assertNotNull(again.getId());
+    }
+
+    @Test
+    public void writeBehindCopiesTheStepContexts() throws Exception {
+        database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true)
+                .addScript("classpath:org/springframework/batch/core/schema-h2.sql")
+                .build();
+        repository.setWriteBehindTarget(jdbcRepository());
+        repository.setWriteBehindQueueCapacity(10);
+        repository.afterPropertiesSet();
+
+        JobExecution execution = repository.createJobExecution("job", parameters(1L));
+        execution.getExecutionContext().putString("job.key", "job value");
+        StepExecution stepExecution = step(execution, "step1");
+        stepExecution.setReadCount(7);
+        stepExecution.getExecutionContext().putLong("step.key", 42L);
+        finish(execution, BatchStatus.COMPLETED);
+        repository.destroy();
+
+        JobExplorer explorer = jdbcExplorer();
+        JobExecution copy = explorer.getJobExecutions(explorer.getJobInstances("job", 0, 1).get(0)).get(0);
+        StepExecution stepCopy = copy.getStepExecutions().iterator().next();
+
+        assertEquals(BatchStatus.COMPLETED, copy.getStatus());
+        assertEquals("job value", copy.getExecutionContext().getString("job.key"));
+        assertEquals("step1", stepCopy.getStepName());
+        assertEquals(7, stepCopy.getReadCount());
+        assertEquals(42L, stepCopy.getExecutionContext().getLong("step.key"));
+    }
+
+    private StepExecution step(JobExecution execution, String stepName) {
+        StepExecution stepExecution = execution.createStepExecution(stepName);
+        stepExecution.setStartTime(new Date());
+        repository.add(stepExecution);
+        stepExecution.setStatus(BatchStatus.FAILED);
+        stepExecution.setEndTime(new Date());
+        repository.update(stepExecution);
+        return stepExecution;
+    }
+
+    private void finish(JobExecution execution, BatchStatus status) {
+        execution.setStartTime(new Date());
+        execution.setStatus(status);
+        execution.setExitStatus(new ExitStatus(status.name()));
+        execution.setEndTime(new Date());
+        repository.update(execution);
+    }
+
+    private JobRepository jdbcRepository() throws Exception {
+        JobRepositoryFactoryBean factory = new JobRepositoryFactoryBean();
+        factory.setDataSource(database);
+        factory.setTransactionManager(new DataSourceTransactionManager(database));
+        factory.afterPropertiesSet();
+        return factory.getObject();
+    }
+
+    private JobExplorer jdbcExplorer() throws Exception {
+        JobExplorerFactoryBean factory = new JobExplorerFactoryBean();
+        factory.setDataSource(database);
+        factory.afterPropertiesSet();
+        return factory.getObject();
+    }
+
+    private static JobParameters parameters(long run) {
+        return new JobParametersBuilder().addLong("run", run).toJobParameters();
+    }
+}
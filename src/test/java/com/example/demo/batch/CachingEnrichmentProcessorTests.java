@@ -0,0 +1,85 @@
+package com.example.demo.batch;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class CachingEnrichmentProcessorTests {
+
+    private final List<Set<String>> loads = new ArrayList<>();
+
+    // enriches a first name with its last name, looked up by the first name
+    private final CachingEnrichmentProcessor<String, String, String, Person> processor = new CachingEnrichmentProcessor<>(
+            new LookupCache<>(100, 1, TimeUnit.HOURS),
+            firstName -> firstName,
+            keys -> {
+                loads.add(new LinkedHashSet<>(keys));
+                Map<String, String> values = new HashMap<>();
+                keys.forEach(key -> values.put(key, "DOE"));
+                return values;
+            },
+            (firstName, lastName) -> new Person(firstName, lastName));
+
+    @After
+    public void close() {
+        StepSynchronizationManager.close();
+    }
+
+    @Test
+    public void loadsTheKeysOfAChunkInOneCall() throws Exception {
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+        StepSynchronizationManager.register(stepExecution);
+        for (String firstName : Arrays.asList("JILL", "JOE", "JILL")) {
+            processor.afterRead(firstName);
+        }
+
+        assertEquals("DOE", processor.process("JILL").getLastName());
+        assertEquals("DOE", processor.process("JOE").getLastName());
+        assertEquals("DOE", processor.process("JILL").getLastName());
+        processor.afterChunk(new ChunkContext(new StepContext(stepExecution)));
+
+        assertEquals(1, loads.size());
+        assertEquals(new LinkedHashSet<>(Arrays.asList("JILL", "JOE")), loads.get(0));
+    }
+
+    @Test
+    public void servesTheNextChunkFromTheCache() throws Exception {
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+        StepSynchronizationManager.register(stepExecution);
+        processor.afterRead("JILL");
+        processor.process("JILL");
+        processor.afterChunk(new ChunkContext(new StepContext(stepExecution)));
+
+        processor.afterRead("JILL");
+        processor.afterRead("JOE");
+        processor.process("JILL");
+        processor.process("JOE");
+
+        assertEquals(2, loads.size());
+        assertEquals(new LinkedHashSet<>(Arrays.asList("JOE")), loads.get(1));
+    }
+
+    @Test
+    public void looksUpPerItemWithoutAStepContext() throws Exception {
+        assertEquals("DOE", processor.process("JILL").getLastName());
+        assertEquals("DOE", processor.process("JOE").getLastName());
+        assertEquals("DOE", processor.process("JILL").getLastName());
+
+        assertEquals(2, loads.size());
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.demo.batch;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class ChunkItemProcessorAdapterTests {
+
+    private final Person jill = new Person("Jill", "Doe");
+
+    private final Person joe = new Person("Joe", "Doe");
+
+    private final Person skipped = new Person("", "Doe");
+
+    private final UpperCaseProcessor delegate = new UpperCaseProcessor();
+
+    private final ChunkItemProcessorAdapter<Person, String> adapter = new ChunkItemProcessorAdapter<>(delegate);
+
+    @After
+    public void close() {
+        StepSynchronizationManager.close();
+    }
+
+    @Test
+    public void processesTheChunkInOneCall() throws Exception {
+        read(jill, joe, skipped);
+
+        assertEquals("JILL", adapter.process(jill));
+        assertEquals("JOE", adapter.process(joe));
+        assertNull(adapter.process(skipped));
+
+        assertEquals(Arrays.asList(3), delegate.calls);
+    }
+
+    @Test
+    public void fallsBackToSingleItemsWhenTheChunkCallFails() throws Exception {
+        delegate.failOn = joe;
+        read(jill, joe);
+
+        assertEquals("JILL", adapter.process(jill));
+        try {
+            adapter.process(joe);
+            fail("the failing item fails on its own");
+        } catch (IllegalArgumentException expected) {
+        }
+
+        // the chunk call, then one call per processed item
+        assertEquals(Arrays.asList(2, 1, 1), delegate.calls);
+    }
+
+    @Test
+    public void fallsBackToSingleItemsWhenOutputsAreMissing() throws Exception {
+        delegate.dropLast = true;
+        read(jill, joe);
+
+        assertEquals("JILL", adapter.process(jill));
+
+        assertEquals(Arrays.asList(2, 1), delegate.calls);
+    }
+
+    @Test
+    public void processesItemsOneByOneWithoutAStepContext() throws Exception {
+        adapter.afterRead(jill);
+
+        assertEquals("JILL", adapter.process(jill));
+        assertEquals("JOE", adapter.process(joe));
+
+        assertEquals(Arrays.asList(1, 1), delegate.calls);
+    }
+
+    private void read(Person... items) {
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+        StepSynchronizationManager.register(stepExecution);
+        for (Person item : items) {
+            adapter.afterRead(item);
+        }
+    }
+
+    /*
+        Upper cases first names, filters empty ones, records the size of every call
+        dropLast leaves out the last output of a chunk call
+     */
+    private static class UpperCaseProcessor implements ChunkItemProcessor<Person, String> {
+        final List<Integer> calls = new ArrayList<>();
+
+        Person failOn;
+
+        boolean dropLast;
+
+        @Override
+        public List<String> processChunk(List<? extends Person> items) {
+            calls.add(items.size());
+            if (items.contains(failOn)) {
+                throw new IllegalArgumentException("failed on " + failOn);
+            }
+            List<String> outputs = items.stream()
+                    .map(person -> person.getFirstName().isEmpty() ? null : person.getFirstName().toUpperCase())
+                    .collect(Collectors.toList());
+            return dropLast && items.size() > 1 ? outputs.subList(0, outputs.size() - 1) : outputs;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.demo.batch;
+
+import org.junit.Test;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.integration.chunk.ChunkResponse;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.PollableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ChunkReplyRouterTests {
+
+    private final ChunkReplyRouter router = new ChunkReplyRouter();
+
+    @Test
+    public void routesRepliesByJobExecution() {
+        PollableChannel first = router.replyChannel(1L);
+        PollableChannel second = router.replyChannel(2L);
+
+        router.handleMessage(reply(2L, 7));
+        router.handleMessage(reply(1L, 3));
+
+        assertEquals(3, ((ChunkResponse) first.receive(0).getPayload()).getSequence());
+        assertEquals(7, ((ChunkResponse) second.receive(0).getPayload()).getSequence());
+        assertNull(first.receive(0));
+        assertNull(second.receive(0));
+    }
+
+    @Test
+    public void returnsTheSameChannelForAJobExecution() {
+        assertSame(router.replyChannel(1L), router.replyChannel(1L));
+    }
+
+    @Test
+    public void discardsRepliesAfterTheStep() {
+        PollableChannel channel = router.replyChannel(1L);
+        StepExecution stepExecution = MetaDataInstanceFactory.createJobExecution(1L).createStepExecution("managerStep");
+
+        router.afterStep(stepExecution);
+        router.handleMessage(reply(1L, 3));
+
+        assertNull(channel.receive(0));
+        assertNotSame(channel, router.replyChannel(1L));
+    }
+
+    private static Message<ChunkResponse> reply(long jobExecutionId, int sequence) {
+        StepContribution contribution = MetaDataInstanceFactory.createJobExecution(jobExecutionId).createStepExecution("workerStep").createStepContribution();
+        return MessageBuilder.withPayload(new ChunkResponse(sequence, jobExecutionId, contribution)).build();
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.demo.batch;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+public class ClusterSchemaTests {
+
+    private final EmbeddedDatabase dataSource = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2)
+            .generateUniqueName(true).build();
+
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+    @After
+    public void shutdown() {
+        dataSource.shutdown();
+    }
+
+    @Test
+    public void supportsTheIncrementalImportOnEveryStart() {
+        clusterSchema();
+        clusterSchema();
+
+        new IncrementalPersonItemWriter(dataSource).write(Arrays.asList(new Person("JILL", "DOE"), new Person("JILL", "SMITH")));
+        jdbcTemplate.update("INSERT INTO import_watermark VALUES ('file:people.csv', 1, 2, 3, 4, 5)");
+
+        assertEquals(2, (int) jdbcTemplate.queryForObject("SELECT COUNT(*) FROM people", Integer.class));
+    }
+
+    @Test
+    public void upgradesAPeopleTableOfAnEarlierVersion() {
+        jdbcTemplate.execute("CREATE TABLE people (person_id BIGINT IDENTITY NOT NULL PRIMARY KEY, first_name VARCHAR(20), last_name VARCHAR(20))");
+        jdbcTemplate.update("INSERT INTO people (first_name, last_name) VALUES ('JOE', 'DOE')");
+
+        clusterSchema();
+        new IncrementalPersonItemWriter(dataSource).write(Arrays.asList(new Person("JILL", "DOE")));
+
+        assertEquals(2, (int) jdbcTemplate.queryForObject("SELECT COUNT(*) FROM people", Integer.class));
+    }
+
+    private void clusterSchema() {
+        new ResourceDatabasePopulator(new ClassPathResource("schema-cluster.sql")).execute(dataSource);
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.demo.batch;
+
+import org.junit.Test;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.sql.PreparedStatement;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class CompiledPropertyAccessorsTests {
+
+    private final Person person = new Person("JILL", null);
+
+    private final BeanWrapper beanWrapper = new BeanWrapperImpl(person);
+
+    @Test
+    public void accessorsReadLikeBeanWrapper() {
+        for (String property : new String[]{"firstName", "lastName"}) {
+            assertEquals(beanWrapper.getPropertyValue(property), CompiledPropertyAccessors.forProperty(Person.class, property).apply(person));
+        }
+        assertEquals(2, CompiledPropertyAccessors.forClass(Person.class).size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void accessorsRejectAMissingProperty() {
+        CompiledPropertyAccessors.forProperty(Person.class, "middleName");
+    }
+
+    @Test
+    public void parameterSourceMatchesBeanPropertySqlParameterSource() {
+        SqlParameterSource expected = new BeanPropertySqlParameterSource(person);
+        SqlParameterSource actual = new CompiledItemSqlParameterSourceProvider<Person>().createSqlParameterSource(person);
+
+        for (String name : new String[]{"firstName", "lastName"}) {
+            assertTrue(actual.hasValue(name));
+            assertEquals(expected.getValue(name), actual.getValue(name));
+        }
+        assertFalse(expected.hasValue("middleName"));
+        assertFalse(actual.hasValue("middleName"));
+        assertMissing(expected);
+        assertMissing(actual);
+    }
+
+    @Test
+    public void preparedStatementSetterBindsLikeBeanWrapper() throws Exception {
+        Person named = new Person("JILL", "DOE");
+        BeanWrapper namedWrapper = new BeanWrapperImpl(named);
+        PreparedStatement ps = mock(PreparedStatement.class);
+
+        new CompiledItemPreparedStatementSetter<>(Person.class, "lastName", "firstName").setValues(named, ps);
+
+        verify(ps).setString(1, (String) namedWrapper.getPropertyValue("lastName"));
+        verify(ps).setString(2, (String) namedWrapper.getPropertyValue("firstName"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void preparedStatementSetterRejectsAMissingProperty() {
+        new CompiledItemPreparedStatementSetter<>(Person.class, "firstName", "middleName");
+    }
+
+    private static void assertMissing(SqlParameterSource source) {
+        try {
+            source.getValue("middleName");
+            fail("expected an IllegalArgumentException for a missing property");
+        } catch (IllegalArgumentException expected) {
+            // both sources reject an unknown parameter alike
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.demo.batch;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DataSourceConfigurationTests {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(DataSourceAutoConfiguration.class))
+            .withUserConfiguration(DataSourceConfiguration.class)
+            .withPropertyValues("spring.datasource.url=jdbc:h2:mem:pools", "spring.datasource.username=sa");
+
+    @Test
+    public void singlePoolByDefault() {
+        contextRunner.run(context -> {
+            assertThat(context).hasSingleBean(DataSource.class);
+            assertThat(context).doesNotHaveBean(DataSourceConfiguration.class);
+        });
+    }
+
+    @Test
+    public void metadataStaysOnBusinessPoolWithSeparatePools() {
+        contextRunner.withPropertyValues("batch.datasource.separate-pools=true").run(context -> {
+            assertThat(context.getBeansOfType(HikariDataSource.class)).containsOnlyKeys("dataSource", "quartzDataSource");
+        });
+    }
+
+    @Test
+    public void metadataPoolIsOptIn() {
+        contextRunner.withPropertyValues("batch.datasource.separate-pools=true", "batch.datasource.separate-metadata-pool=true",
+                "batch.datasource.metadata.maximum-pool-size=2").run(context -> {
+            assertThat(context.getBeansOfType(HikariDataSource.class)).containsOnlyKeys("dataSource", "metadataDataSource", "quartzDataSource");
+            assertThat(context.getBean("metadataDataSource", HikariDataSource.class).getMaximumPoolSize()).isEqualTo(2);
+            assertThat(context.getBean("metadataDataSource", HikariDataSource.class).getPoolName()).isEqualTo("metadata");
+        });
+    }
+}
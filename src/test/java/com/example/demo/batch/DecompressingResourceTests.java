@@ -0,0 +1,91 @@
+package com.example.demo.batch;
+
+import com.example.demo.batch.DecompressingResource.Compression;
+import com.github.luben.zstd.ZstdOutputStream;
+import org.junit.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+
+public class DecompressingResourceTests {
+
+    private static final String CSV = "Jill,Doe\nJoe,Doe\n";
+
+    @Test
+    public void detectsGzip() throws IOException {
+        Resource resource = new ByteArrayResource(gzip(CSV));
+
+        assertEquals(Compression.GZIP, DecompressingResource.detect(resource, Compression.AUTO));
+        assertEquals(CSV, read(new DecompressingResource(resource, Compression.AUTO)));
+    }
+
+    @Test
+    public void readsConcatenatedGzipMembers() throws IOException {
+        ByteArrayOutputStream members = new ByteArrayOutputStream();
+        members.write(gzip("Jill,Doe\n"));
+        members.write(gzip("Joe,Doe\n"));
+
+        assertEquals(CSV, read(new DecompressingResource(new ByteArrayResource(members.toByteArray()), Compression.AUTO)));
+    }
+
+    @Test
+    public void detectsZstd() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new ZstdOutputStream(bytes)) {
+            out.write(CSV.getBytes(StandardCharsets.UTF_8));
+        }
+        Resource resource = new ByteArrayResource(bytes.toByteArray());
+
+        assertEquals(Compression.ZSTD, DecompressingResource.detect(resource, Compression.AUTO));
+        assertEquals(CSV, read(new DecompressingResource(resource, Compression.AUTO)));
+    }
+
+    @Test
+    public void passesPlainInputThrough() throws IOException {
+        Resource resource = new ByteArrayResource(CSV.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(Compression.NONE, DecompressingResource.detect(resource, Compression.AUTO));
+        assertEquals(CSV, read(new DecompressingResource(resource, Compression.AUTO)));
+    }
+
+    @Test
+    public void passesInputShorterThanAMagicNumberThrough() throws IOException {
+        Resource resource = new ByteArrayResource(new byte[]{0x28, (byte) 0xb5});
+
+        assertEquals(Compression.NONE, DecompressingResource.detect(resource, Compression.AUTO));
+        assertEquals(2, StreamUtils.copyToByteArray(new DecompressingResource(resource, Compression.AUTO).getInputStream()).length);
+    }
+
+    @Test
+    public void keepsAnExplicitCompression() throws IOException {
+        Resource resource = new ByteArrayResource(CSV.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(Compression.GZIP, DecompressingResource.detect(resource, Compression.GZIP));
+        assertEquals(Compression.NONE, DecompressingResource.detect(new FileSystemResource("missing.csv.gz"), Compression.AUTO));
+        assertEquals(Compression.ZSTD, Compression.of(" zstd "));
+    }
+
+    private static byte[] gzip(String content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+
+    private static String read(Resource resource) throws IOException {
+        try (InputStream in = resource.getInputStream()) {
+            return StreamUtils.copyToString(in, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.demo.batch;
+
+import org.junit.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class FileThroughputListenerTests {
+
+    private final FileThroughputListener listener = new FileThroughputListener("reader");
+
+    @Test
+    public void ratesAFileReadFromTheFirstRecord() {
+        StepExecution stepExecution = start(null);
+        stepExecution.setStatus(BatchStatus.COMPLETED);
+
+        assertEquals(2.0, listener.megabytesPerSecond(stepExecution, 500), 0.0001);
+    }
+
+    @Test
+    public void doesNotRateARestartedOrAppendedFile() {
+        // read count restored from the failed execution, or set by ImportWatermarkListener
+        StepExecution stepExecution = start(6);
+        stepExecution.setStatus(BatchStatus.COMPLETED);
+
+        assertNull(listener.megabytesPerSecond(stepExecution, 500));
+    }
+
+    @Test
+    public void doesNotRateAFailedFile() {
+        StepExecution stepExecution = start(null);
+        stepExecution.setStatus(BatchStatus.FAILED);
+
+        assertNull(listener.megabytesPerSecond(stepExecution, 500));
+    }
+
+    private StepExecution start(Integer readCount) {
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+        stepExecution.getExecutionContext().putLong(MultiFilePartitioner.FILE_SIZE_KEY, 1024 * 1024);
+        if (readCount != null) {
+            stepExecution.getExecutionContext().putInt("reader.read.count", readCount);
+        }
+        listener.beforeStep(stepExecution);
+        stepExecution.getExecutionContext().putInt("reader.read.count", 10);
+        return stepExecution;
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.demo.batch;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ImportWatermarkListenerTests {
+
+    private static final String READER = "personItemReader";
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final EmbeddedDatabase dataSource = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2)
+            .generateUniqueName(true).addScript("classpath:schema-all.sql").build();
+
+    private File file;
+
+    private ImportWatermarkListener listener;
+
+    @Before
+    public void setUp() throws IOException {
+        file = folder.newFile("people.csv");
+        listener = new ImportWatermarkListener(dataSource, READER, stepExecution -> new FileSystemResource(file), Function.identity());
+    }
+
+    @After
+    public void shutdown() {
+        dataSource.shutdown();
+    }
+
+    @Test
+    public void readsANewFileFromTheStart() throws IOException {
+        write("Jill,Doe\nJoe,Doe\n", 1000);
+
+        ExecutionContext context = run(BatchStatus.COMPLETED);
+
+        assertEquals(0, context.getInt(READER + ".read.count"));
+        assertEquals(Integer.MAX_VALUE, context.getInt(READER + ".read.count.max"));
+        assertEquals(Integer.valueOf(2), new JdbcTemplate(dataSource).queryForObject("SELECT record_count FROM import_watermark", Integer.class));
+    }
+
+    @Test
+    public void skipsAnUnchangedFile() throws IOException {
+        write("Jill,Doe\nJoe,Doe\n", 1000);
+        run(BatchStatus.COMPLETED);
+
+        ExecutionContext context = run(BatchStatus.COMPLETED);
+
+        assertEquals(2, context.getInt(READER + ".read.count"));
+        assertEquals(2, context.getInt(READER + ".read.count.max"));
+    }
+
+    @Test
+    public void readsTheAppendedRecordsOnly() throws IOException {
+        write("Jill,Doe\nJoe,Doe\n", 1000);
+        run(BatchStatus.COMPLETED);
+        append("Justin,Doe\n", 2000);
+
+        ExecutionContext context = run(BatchStatus.COMPLETED);
+
+        assertEquals(2, context.getInt(READER + ".read.count"));
+        assertEquals(Integer.MAX_VALUE, context.getInt(READER + ".read.count.max"));
+    }
+
+    @Test
+    public void leavesATrailingPartialLineForTheNextImport() throws IOException {
+        write("Jill,Doe\nJoe,D", 1000);
+        run(BatchStatus.COMPLETED);
+        append("oe\nJustin,Doe\n", 2000);
+
+        ExecutionContext context = run(BatchStatus.COMPLETED);
+
+        assertEquals(1, context.getInt(READER + ".read.count"));
+    }
+
+    @Test
+    public void readsARewrittenFileAgain() throws IOException {
+        write("Jill,Doe\nJoe,Doe\n", 1000);
+        run(BatchStatus.COMPLETED);
+        write("Jack,Doe\nJoe,Doe\nJustin,Doe\n", 2000);
+
+        ExecutionContext context = run(BatchStatus.COMPLETED);
+
+        assertEquals(0, context.getInt(READER + ".read.count"));
+    }
+
+    @Test
+    public void keepsNoWatermarkOfAFailedImport() throws IOException {
+        write("Jill,Doe\nJoe,Doe\n", 1000);
+        run(BatchStatus.FAILED);
+
+        ExecutionContext context = run(BatchStatus.COMPLETED);
+
+        assertEquals(0, context.getInt(READER + ".read.count"));
+    }
+
+    @Test
+    public void leavesTheRestartStateOfARestartedStep() throws IOException {
+        write("Jill,Doe\nJoe,Doe\n", 1000);
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+        stepExecution.getExecutionContext().putInt(READER + ".read.count", 1);
+
+        listener.beforeStep(stepExecution);
+
+        assertEquals(1, stepExecution.getExecutionContext().getInt(READER + ".read.count"));
+        assertFalse(stepExecution.getExecutionContext().containsKey(READER + ".read.count.max"));
+    }
+
+    private ExecutionContext run(BatchStatus status) {
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+        listener.beforeStep(stepExecution);
+        stepExecution.setStatus(status);
+        listener.afterStep(stepExecution);
+        return stepExecution.getExecutionContext();
+    }
+
+    private void write(String content, long lastModified) throws IOException {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        assertTrue(file.setLastModified(lastModified));
+    }
+
+    private void append(String content, long lastModified) throws IOException {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        assertTrue(file.setLastModified(lastModified));
+    }
+}
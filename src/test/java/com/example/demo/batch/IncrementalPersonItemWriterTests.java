@@ -0,0 +1,134 @@
+package com.example.demo.batch;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class IncrementalPersonItemWriterTests {
+
+    private final EmbeddedDatabase dataSource = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2)
+            .generateUniqueName(true).addScript("classpath:schema-all.sql").build();
+
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+    @After
+    public void shutdown() {
+        StepSynchronizationManager.close();
+        dataSource.shutdown();
+    }
+
+    @Test
+    public void keepsPeopleSharingAFirstName() {
+        IncrementalPersonItemWriter writer = new IncrementalPersonItemWriter(dataSource);
+
+        writer.write(Arrays.asList(new Person("JOHN", "DOE"), new Person("JOHN", "SMITH")));
+        writer.write(Collections.singletonList(new Person("JOHN", "BROWN")));
+
+        assertEquals(Arrays.asList("BROWN", "DOE", "SMITH"),
+                jdbcTemplate.queryForList("SELECT last_name FROM people WHERE first_name = 'JOHN' ORDER BY last_name", String.class));
+    }
+
+    @Test
+    public void countsUnchangedPeople() {
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+        StepSynchronizationManager.register(stepExecution);
+        IncrementalPersonItemWriter writer = new IncrementalPersonItemWriter(dataSource);
+
+        writer.write(Arrays.asList(new Person("JILL", "DOE"), new Person("JOE", "DOE")));
+        writer.write(Arrays.asList(new Person("JILL", "DOE"), new Person("JOE", "DOE"), new Person("JUSTIN", "DOE")));
+
+        assertEquals(3, count());
+        assertEquals(2, stepExecution.getExecutionContext().getLong(IncrementalPersonItemWriter.UNCHANGED_COUNT_KEY));
+    }
+
+    @Test
+    public void updatesChangedPeopleOfAnInputKey() {
+        IncrementalPersonItemWriter writer = new IncrementalPersonItemWriter(dataSource, Person::getFirstName);
+
+        writer.write(Collections.singletonList(new Person("JILL", "DOE")));
+        writer.write(Collections.singletonList(new Person("JILL", "SMITH")));
+
+        assertEquals(1, count());
+        assertEquals("SMITH", jdbcTemplate.queryForObject("SELECT last_name FROM people", String.class));
+        assertEquals(IncrementalPersonItemWriter.contentHash(new Person("JILL", "SMITH")),
+                (long) jdbcTemplate.queryForObject("SELECT content_hash FROM people", Long.class));
+    }
+
+    @Test
+    public void concurrentWritersShareAPerson() throws Exception {
+        IncrementalPersonItemWriter writer = new IncrementalPersonItemWriter(dataSource);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        CountDownLatch firstWritten = new CountDownLatch(1);
+        CountDownLatch commitFirst = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> first = executor.submit(() -> transactionTemplate.execute(status -> {
+                writer.write(Collections.singletonList(new Person("JILL", "DOE")));
+                firstWritten.countDown();
+                await(commitFirst);
+                return null;
+            }));
+            firstWritten.await();
+            // the second file reads no stored hash and writes the same key while the first is uncommitted
+            Future<?> second = executor.submit(() -> transactionTemplate.execute(status -> {
+                writer.write(Arrays.asList(new Person("JILL", "DOE"), new Person("JOE", "DOE")));
+                return null;
+            }));
+            Thread.sleep(200);
+            commitFirst.countDown();
+
+            first.get(10, TimeUnit.SECONDS);
+            second.get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(2, count());
+    }
+
+    @Test
+    public void nameKeyFitsTheColumn() {
+        String name = "ABCDEFGHIJKLMNOPQRST";
+        new IncrementalPersonItemWriter(dataSource).write(Collections.singletonList(new Person(name, name)));
+        assertEquals(1, count());
+    }
+
+    @Test
+    public void hashSeparatesTheFields() {
+        assertNotEquals(IncrementalPersonItemWriter.contentHash(new Person("AB", "C")),
+                IncrementalPersonItemWriter.contentHash(new Person("A", "BC")));
+        assertNotEquals(IncrementalPersonItemWriter.NAME_KEY.apply(new Person("AB", "C")),
+                IncrementalPersonItemWriter.NAME_KEY.apply(new Person("A", "BC")));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private int count() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM people", Integer.class);
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.demo.batch;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+public class ItemProgressReporterTests {
+
+    private final ItemProgressReporter reporter = new ItemProgressReporter(2, 0);
+
+    @After
+    public void close() {
+        StepSynchronizationManager.close();
+    }
+
+    @Test
+    public void countsOverlappingExecutionsSeparately() {
+        JobExecution first = MetaDataInstanceFactory.createJobExecution("importUserJob", 1L, 1L);
+        JobExecution second = MetaDataInstanceFactory.createJobExecution("importUserJob", 2L, 2L);
+        reporter.beforeJob(first);
+        write(first, 3);
+        reporter.beforeJob(second);
+        write(second, 1);
+        write(first, 2);
+
+        assertEquals(5, reporter.getWrittenCount(first));
+        assertEquals(1, reporter.getWrittenCount(second));
+
+        reporter.afterJob(first);
+        assertEquals(0, reporter.getWrittenCount(first));
+        assertEquals(1, reporter.getWrittenCount(second));
+    }
+
+    @Test
+    public void countsStepsRegisteredWithoutTheJob() {
+        JobExecution jobExecution = MetaDataInstanceFactory.createJobExecution("importUserJob", 1L, 1L);
+
+        write(jobExecution, 4);
+
+        assertEquals(4, reporter.getWrittenCount(jobExecution));
+    }
+
+    @Test
+    public void ignoresWritesOutsideOfAStep() {
+        reporter.afterWrite(Arrays.asList("JILL", "JOE"));
+    }
+
+    private void write(JobExecution jobExecution, int items) {
+        StepSynchronizationManager.register(jobExecution.createStepExecution("step1"));
+        try {
+            reporter.afterWrite(Collections.nCopies(items, "item"));
+        } finally {
+            StepSynchronizationManager.close();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.demo.batch;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class JobCompletionNotificationListenerTests {
+
+    private final EmbeddedDatabase dataSource = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2)
+            .generateUniqueName(true).addScript("classpath:schema-all.sql").build();
+
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+    @After
+    public void shutdown() {
+        dataSource.shutdown();
+    }
+
+    private final JobCompletionNotificationListener listener = new JobCompletionNotificationListener(jdbcTemplate);
+
+    @Test
+    public void checksumIsZeroForAnEmptyTable() {
+        assertEquals(0L, listener.summarize().count);
+        assertEquals(0L, checksum());
+    }
+
+    @Test
+    public void countsEveryPerson() {
+        insert("JILL", "DOE");
+        insert("JOE", null);
+
+        assertEquals(2L, listener.summarize().count);
+    }
+
+    @Test
+    public void checksumIgnoresTheRowOrder() {
+        insert("JILL", "DOE");
+        insert("JOE", "DOE");
+        long checksum = checksum();
+
+        jdbcTemplate.update("DELETE FROM people");
+        insert("JOE", "DOE");
+        insert("JILL", "DOE");
+
+        assertEquals(checksum, checksum());
+    }
+
+    @Test
+    public void checksumDetectsSwappedAndChangedNames() {
+        insert("JILL", "DOE");
+        long checksum = checksum();
+
+        jdbcTemplate.update("UPDATE people SET first_name = 'DOE', last_name = 'JILL'");
+        assertNotEquals(checksum, checksum());
+
+        // same lengths as the original names
+        jdbcTemplate.update("UPDATE people SET first_name = 'JACK', last_name = 'ROE'");
+        assertNotEquals(checksum, checksum());
+    }
+
+    private void insert(String firstName, String lastName) {
+        jdbcTemplate.update("INSERT INTO people (first_name, last_name) VALUES (?, ?)", firstName, lastName);
+    }
+
+    private long checksum() {
+        return listener.summarize().checksum;
+    }
+}
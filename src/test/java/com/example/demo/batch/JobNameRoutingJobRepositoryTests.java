@@ -0,0 +1,69 @@
+package com.example.demo.batch;
+
+import org.junit.Test;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+
+import java.util.Collections;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+public class JobNameRoutingJobRepositoryTests {
+
+    private final JobRepository defaultRepository = mock(JobRepository.class);
+
+    private final JobRepository lightweightRepository = mock(JobRepository.class);
+
+    private final JobNameRoutingJobRepository repository =
+            new JobNameRoutingJobRepository(defaultRepository, lightweightRepository, Collections.singletonList("lightweightJob"));
+
+    @Test
+    public void routesListedJobsToTheLightweightRepository() throws Exception {
+        JobExecution jobExecution = MetaDataInstanceFactory.createJobExecution("lightweightJob", 1L, 2L);
+        StepExecution stepExecution = jobExecution.createStepExecution("step1");
+
+        repository.createJobExecution("lightweightJob", new JobParameters());
+        repository.update(jobExecution);
+        repository.add(stepExecution);
+        repository.addAll(Collections.singletonList(stepExecution));
+        repository.updateExecutionContext(stepExecution);
+        repository.getLastStepExecution(jobExecution.getJobInstance(), "step1");
+
+        verify(lightweightRepository).createJobExecution("lightweightJob", new JobParameters());
+        verify(lightweightRepository).update(jobExecution);
+        verify(lightweightRepository).add(stepExecution);
+        verify(lightweightRepository).addAll(Collections.singletonList(stepExecution));
+        verify(lightweightRepository).updateExecutionContext(stepExecution);
+        verify(lightweightRepository).getLastStepExecution(jobExecution.getJobInstance(), "step1");
+        verifyZeroInteractions(defaultRepository);
+    }
+
+    @Test
+    public void routesOtherJobsToTheDefaultRepository() throws Exception {
+        JobExecution jobExecution = MetaDataInstanceFactory.createJobExecution("importUserJob", 1L, 2L);
+        StepExecution stepExecution = jobExecution.createStepExecution("step1");
+
+        repository.createJobExecution("importUserJob", new JobParameters());
+        repository.update(jobExecution);
+        repository.update(stepExecution);
+        repository.getStepExecutionCount(jobExecution.getJobInstance(), "step1");
+
+        verify(defaultRepository).createJobExecution("importUserJob", new JobParameters());
+        verify(defaultRepository).update(jobExecution);
+        verify(defaultRepository).update(stepExecution);
+        verify(defaultRepository).getStepExecutionCount(jobExecution.getJobInstance(), "step1");
+        verifyZeroInteractions(lightweightRepository);
+    }
+
+    @Test
+    public void ignoresAnEmptyAddAll() {
+        repository.addAll(Collections.emptyList());
+
+        verifyZeroInteractions(defaultRepository, lightweightRepository);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.demo.batch;
+
+import org.junit.Test;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.core.io.ByteArrayResource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class LineRangePartitionerTests {
+
+    @Test
+    public void spreadsTheRemainderOverTheFirstPartitions() {
+        Map<String, ExecutionContext> partitions = partition("a\nb\nc\nd\ne\n", 3);
+
+        assertEquals(3, partitions.size());
+        assertRange(partitions.get("partition0"), 0, 2);
+        assertRange(partitions.get("partition1"), 2, 4);
+        assertRange(partitions.get("partition2"), 4, 5);
+    }
+
+    @Test
+    public void countsATrailingLineWithoutALineFeed() {
+        Map<String, ExecutionContext> partitions = partition("a\nb\nc", 1);
+
+        assertRange(partitions.get("partition0"), 0, 3);
+    }
+
+    @Test
+    public void neverCreatesMorePartitionsThanLines() {
+        Map<String, ExecutionContext> partitions = partition("a\nb\n", 8);
+
+        assertEquals(2, partitions.size());
+        assertRange(partitions.get("partition0"), 0, 1);
+        assertRange(partitions.get("partition1"), 1, 2);
+    }
+
+    @Test
+    public void createsOneEmptyPartitionForAnEmptyResource() {
+        Map<String, ExecutionContext> partitions = partition("", 4);
+
+        assertEquals(1, partitions.size());
+        assertRange(partitions.get("partition0"), 0, 0);
+    }
+
+    private static Map<String, ExecutionContext> partition(String content, int gridSize) {
+        return new LineRangePartitioner(new ByteArrayResource(content.getBytes(StandardCharsets.UTF_8))).partition(gridSize);
+    }
+
+    private static void assertRange(ExecutionContext context, int startLine, int endLine) {
+        assertEquals(startLine, context.getInt(LineRangePartitioner.START_LINE_KEY));
+        assertEquals(endLine, context.getInt(LineRangePartitioner.END_LINE_KEY));
+    }
+}
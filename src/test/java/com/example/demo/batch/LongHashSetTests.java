@@ -0,0 +1,95 @@
+package com.example.demo.batch;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LongHashSetTests {
+
+    @Test
+    public void addsAndFindsKeys() {
+        LongHashSet set = new LongHashSet(8, false);
+
+        assertTrue(set.add(42));
+        assertFalse(set.add(42));
+        assertTrue(set.contains(42));
+        assertFalse(set.contains(43));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    public void keepsTheZeroKeyAside() {
+        LongHashSet set = new LongHashSet(2, false);
+
+        assertFalse(set.contains(0));
+        assertTrue(set.add(0));
+        assertFalse(set.add(0));
+        assertTrue(set.contains(0));
+        assertTrue(set.add(-1));
+        assertTrue(set.isFull());
+    }
+
+    @Test
+    public void probesPastCollidingKeys() {
+        // the slot of a key is taken from its mixed low bits, keys equal in the low 32 bits still have to be told apart
+        LongHashSet set = new LongHashSet(64, false);
+        for (long i = 1; i <= 64; i++) {
+            assertTrue(set.add(i << 32));
+        }
+        for (long i = 1; i <= 64; i++) {
+            assertTrue(set.contains(i << 32));
+            assertFalse(set.contains((i << 32) + 1));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void failsOnceFull() {
+        LongHashSet set = new LongHashSet(2, false);
+        set.add(1);
+        set.add(2);
+        assertTrue(set.isFull());
+        // a known key is no new entry
+        assertFalse(set.add(2));
+        set.add(3);
+    }
+
+    @Test
+    public void growsUpToMaxSize() {
+        LongHashSet set = new LongHashSet(4, 1000, false);
+        long initialBytes = set.sizeInBytes();
+
+        for (long i = 1; i <= 1000; i++) {
+            assertTrue(set.add(i * 31));
+        }
+
+        assertTrue(set.isFull());
+        assertTrue(set.sizeInBytes() > initialBytes);
+        assertEquals(LongHashSet.slotsFor(1000) * (long) Long.BYTES, set.sizeInBytes());
+        for (long i = 1; i <= 1000; i++) {
+            assertTrue(set.contains(i * 31));
+        }
+        assertFalse(set.contains(32));
+    }
+
+    @Test
+    public void matchesHashSetOffHeap() {
+        Random random = new Random(7);
+        LongHashSet set = new LongHashSet(16, 20_000, true);
+        Set<Long> expected = new HashSet<>();
+        for (int i = 0; i < 20_000; i++) {
+            // a small range, so keys repeat
+            long key = random.nextInt(30_000) - 10_000;
+            assertEquals(expected.add(key), set.add(key));
+        }
+        assertEquals(expected.size(), set.size());
+        for (long key = -10_000; key < 20_000; key++) {
+            assertEquals(expected.contains(key), set.contains(key));
+        }
+    }
+}
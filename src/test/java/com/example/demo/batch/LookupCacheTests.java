@@ -0,0 +1,97 @@
+package com.example.demo.batch;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class LookupCacheTests {
+
+    private final List<Set<String>> loads = new ArrayList<>();
+
+    // finds every key but "missing"
+    private final Function<Set<String>, Map<String, String>> loader = keys -> {
+        loads.add(keys);
+        Map<String, String> values = new HashMap<>();
+        keys.stream().filter(key -> !key.equals("missing")).forEach(key -> values.put(key, key.toUpperCase()));
+        return values;
+    };
+
+    @Test
+    public void loadsOnlyTheMissingKeysInOneCall() {
+        LookupCache<String, String> cache = new LookupCache<>(10, 1, TimeUnit.HOURS);
+        cache.getAll(Collections.singletonList("kr"), loader);
+
+        Map<String, String> values = cache.getAll(Arrays.asList("kr", "us", "jp", "us"), loader);
+
+        assertEquals("KR", values.get("kr"));
+        assertEquals("US", values.get("us"));
+        assertEquals(2, loads.size());
+        assertEquals(2, loads.get(1).size());
+        assertEquals(1, cache.hitCount());
+        assertEquals(3, cache.missCount());
+    }
+
+    @Test
+    public void cachesKeysTheLoaderDidNotFind() {
+        LookupCache<String, String> cache = new LookupCache<>(10, 1, TimeUnit.HOURS);
+
+        assertNull(cache.getAll(Collections.singletonList("missing"), loader).get("missing"));
+        assertNull(cache.getAll(Collections.singletonList("missing"), loader).get("missing"));
+
+        assertEquals(1, loads.size());
+        assertEquals(1, cache.hitCount());
+    }
+
+    @Test
+    public void reloadsExpiredEntries() {
+        LookupCache<String, String> cache = new LookupCache<>(10, 0, TimeUnit.NANOSECONDS);
+
+        cache.getAll(Collections.singletonList("kr"), loader);
+        cache.getAll(Collections.singletonList("kr"), loader);
+
+        assertEquals(2, loads.size());
+        assertEquals(1, cache.evictionCount());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void evictsTheLeastRecentlyUsedEntry() {
+        LookupCache<String, String> cache = new LookupCache<>(2, 1, TimeUnit.HOURS);
+        cache.getAll(Collections.singletonList("kr"), loader);
+        cache.getAll(Collections.singletonList("us"), loader);
+        cache.getAll(Collections.singletonList("kr"), loader);
+
+        cache.getAll(Collections.singletonList("jp"), loader);
+        loads.clear();
+        cache.getAll(Arrays.asList("kr", "jp", "us"), loader);
+
+        assertEquals(Collections.singletonList(Collections.singleton("us")), loads);
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void publishesCacheMeters() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        LookupCache<String, String> cache = new LookupCache<>(10, 1, TimeUnit.HOURS);
+        cache.metrics("country").bindTo(registry);
+
+        cache.getAll(Collections.singletonList("kr"), loader);
+        cache.getAll(Collections.singletonList("kr"), loader);
+
+        assertEquals(1.0, registry.get("cache.gets").tags("cache", "country", "result", "hit").functionCounter().count(), 0.0);
+        assertEquals(1.0, registry.get("cache.gets").tags("cache", "country", "result", "miss").functionCounter().count(), 0.0);
+        assertEquals(1.0, registry.get("cache.size").tags("cache", "country").gauge().value(), 0.0);
+    }
+}
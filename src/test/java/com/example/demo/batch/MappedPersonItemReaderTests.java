@@ -0,0 +1,90 @@
+package com.example.demo.batch;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.file.FlatFileParseException;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class MappedPersonItemReaderTests {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readsLinesAcrossMappingWindows() throws Exception {
+        MappedPersonItemReader reader = reader(write("Jill,Doe\r\nJoe,Doe\n홍길동,Kim"), 14);
+
+        reader.open(new ExecutionContext());
+        assertPerson("Jill", "Doe", reader.read());
+        assertPerson("Joe", "Doe", reader.read());
+        assertPerson("홍길동", "Kim", reader.read());
+        assertNull(reader.read());
+        reader.close();
+    }
+
+    @Test
+    public void restartsFromSavedOffset() throws Exception {
+        File file = write("Jill,Doe\nJoe,Doe\nJustin,Doe\n");
+        ExecutionContext executionContext = new ExecutionContext();
+
+        MappedPersonItemReader reader = reader(file, 1024);
+        reader.open(executionContext);
+        reader.read();
+        reader.update(executionContext);
+        reader.close();
+
+        MappedPersonItemReader restarted = reader(file, 1024);
+        restarted.open(executionContext);
+        assertPerson("Joe", "Doe", restarted.read());
+        assertPerson("Justin", "Doe", restarted.read());
+        assertNull(restarted.read());
+        restarted.close();
+    }
+
+    @Test
+    public void readsLineRange() throws Exception {
+        MappedPersonItemReader reader = reader(write("Jill,Doe\nJoe,Doe\nJustin,Doe\nJane,Doe\n"), 1024);
+        reader.setCurrentItemCount(1);
+        reader.setMaxItemCount(3);
+
+        reader.open(new ExecutionContext());
+        assertPerson("Joe", "Doe", reader.read());
+        assertPerson("Justin", "Doe", reader.read());
+        assertNull(reader.read());
+        reader.close();
+    }
+
+    @Test(expected = FlatFileParseException.class)
+    public void rejectsLineWithoutDelimiter() throws Exception {
+        MappedPersonItemReader reader = reader(write("Jill\n"), 1024);
+        reader.open(new ExecutionContext());
+        reader.read();
+    }
+
+    private File write(String content) throws Exception {
+        File file = folder.newFile();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private MappedPersonItemReader reader(File file, int windowSize) {
+        MappedPersonItemReader reader = new MappedPersonItemReader();
+        reader.setResource(new FileSystemResource(file));
+        reader.setWindowSize(windowSize);
+        return reader;
+    }
+
+    private void assertPerson(String firstName, String lastName, Person person) {
+        assertEquals(firstName, person.getFirstName());
+        assertEquals(lastName, person.getLastName());
+    }
+}
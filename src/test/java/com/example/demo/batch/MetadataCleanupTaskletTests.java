@@ -0,0 +1,150 @@
+package com.example.demo.batch;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.support.JobRepositoryFactoryBean;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class MetadataCleanupTaskletTests {
+
+    private final EmbeddedDatabase dataSource = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2)
+            .generateUniqueName(true).addScript("classpath:org/springframework/batch/core/schema-h2.sql").build();
+
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+    private final MetadataCleanupTasklet tasklet = new MetadataCleanupTasklet(dataSource);
+
+    private final StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+
+    private JobRepository jobRepository;
+
+    @Before
+    public void setUp() throws Exception {
+        JobRepositoryFactoryBean factory = new JobRepositoryFactoryBean();
+        factory.setDataSource(dataSource);
+        factory.setTransactionManager(new DataSourceTransactionManager(dataSource));
+        factory.afterPropertiesSet();
+        jobRepository = factory.getObject();
+        tasklet.setRetentionDays(30);
+    }
+
+    @After
+    public void shutdown() {
+        dataSource.shutdown();
+    }
+
+    @Test
+    public void keepsRunningAndRecentExecutions() throws Exception {
+        JobExecution old = execution("job", 1L, daysAgo(40));
+        JobExecution running = execution("job", 2L, null);
+        JobExecution recent = execution("job", 3L, daysAgo(1));
+        tasklet.afterPropertiesSet();
+
+        assertEquals(RepeatStatus.FINISHED, execute());
+
+        assertEquals(Arrays.asList(running.getId(), recent.getId()), executionIds());
+        assertEquals(2, count("BATCH_JOB_INSTANCE"));
+        assertEquals(2, count("BATCH_STEP_EXECUTION"));
+        assertEquals(2, count("BATCH_STEP_EXECUTION_CONTEXT"));
+        assertEquals(2, count("BATCH_JOB_EXECUTION_CONTEXT"));
+        assertEquals(2, count("BATCH_JOB_EXECUTION_PARAMS"));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM BATCH_JOB_INSTANCE WHERE JOB_INSTANCE_ID = ?",
+                Integer.class, old.getJobInstance().getId()).intValue());
+        assertEquals(1L, stepExecution.getExecutionContext().getLong(MetadataCleanupTasklet.DELETED_EXECUTIONS_KEY));
+    }
+
+    @Test
+    public void keepsInstancesThatStillHaveExecutions() throws Exception {
+        JobExecution old = execution("job", 1L, daysAgo(40));
+        JobExecution restart = execution("job", 1L, daysAgo(1));
+        tasklet.afterPropertiesSet();
+
+        execute();
+
+        assertEquals(restart.getJobInstance(), old.getJobInstance());
+        assertEquals(Arrays.asList(restart.getId()), executionIds());
+        assertEquals(1, count("BATCH_JOB_INSTANCE"));
+    }
+
+    @Test
+    public void deletesInBatches() throws Exception {
+        for (long run = 1; run <= 5; run++) {
+            execution("job", run, daysAgo(40));
+        }
+        JobExecution recent = execution("job", 6L, daysAgo(1));
+        tasklet.setBatchSize(2);
+        tasklet.afterPropertiesSet();
+
+        assertEquals(RepeatStatus.CONTINUABLE, execute());
+        assertEquals(4, count("BATCH_JOB_EXECUTION"));
+        assertEquals(RepeatStatus.CONTINUABLE, execute());
+        assertEquals(RepeatStatus.FINISHED, execute());
+
+        assertEquals(Arrays.asList(recent.getId()), executionIds());
+        assertEquals(1, count("BATCH_JOB_INSTANCE"));
+        assertEquals(5L, stepExecution.getExecutionContext().getLong(MetadataCleanupTasklet.DELETED_EXECUTIONS_KEY));
+    }
+
+    private RepeatStatus execute() throws Exception {
+        return tasklet.execute(new StepContribution(stepExecution), new ChunkContext(new StepContext(stepExecution)));
+    }
+
+    /*
+        A job execution with one step, ended at endTime, still running without one
+     */
+    private JobExecution execution(String jobName, long run, Date endTime) throws Exception {
+        JobExecution execution = jobRepository.createJobExecution(jobName, new JobParametersBuilder().addLong("run", run).toJobParameters());
+        execution.setStartTime(endTime != null ? endTime : daysAgo(40));
+        execution.getExecutionContext().putString("job.key", "job value");
+        jobRepository.updateExecutionContext(execution);
+        StepExecution step = execution.createStepExecution("step1");
+        jobRepository.add(step);
+        step.getExecutionContext().putString("step.key", "step value");
+        jobRepository.updateExecutionContext(step);
+        if (endTime == null) {
+            execution.setStatus(BatchStatus.STARTED);
+        } else {
+            // failed so that the instance can be restarted
+            execution.setStatus(BatchStatus.FAILED);
+            execution.setExitStatus(ExitStatus.FAILED);
+            execution.setEndTime(endTime);
+        }
+        jobRepository.update(execution);
+        return execution;
+    }
+
+    private List<Long> executionIds() {
+        return jdbcTemplate.queryForList("SELECT JOB_EXECUTION_ID FROM BATCH_JOB_EXECUTION ORDER BY JOB_EXECUTION_ID", Long.class);
+    }
+
+    private int count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+    }
+
+    private static Date daysAgo(int days) {
+        return new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(days));
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.demo.batch;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+import org.springframework.core.task.SyncTaskExecutor;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+public class MultiFilePartitionerTests {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void createsOnePartitionPerFileOfADirectory() throws IOException {
+        File small = file("small.csv", 10);
+        file("large.csv", 100);
+        folder.newFolder("archive");
+
+        Map<String, ExecutionContext> partitions = new MultiFilePartitioner(folder.getRoot().getPath()).partition(1);
+
+        assertEquals(2, partitions.size());
+        assertEquals(small.toURI().toURL().toExternalForm(), partitions.get("small.csv").getString(MultiFilePartitioner.FILE_KEY));
+        assertEquals(10L, partitions.get("small.csv").getLong(MultiFilePartitioner.FILE_SIZE_KEY));
+        assertEquals(100L, partitions.get("large.csv").getLong(MultiFilePartitioner.FILE_SIZE_KEY));
+    }
+
+    @Test
+    public void resolvesPatternsLargestFirst() throws IOException {
+        file("a.csv.gz", 10);
+        file("b.csv.gz", 30);
+        file("c.csv.gz", 20);
+        file("notes.txt", 50);
+
+        List<String> names = new ArrayList<>();
+        new MultiFilePartitioner(folder.getRoot().getPath() + "/*.csv.gz").resolve().forEach(file -> names.add(file.getFilename()));
+
+        assertEquals(Arrays.asList("b.csv.gz", "c.csv.gz", "a.csv.gz"), names);
+    }
+
+    @Test
+    public void keepsFilesOfTheSameNameApart() throws IOException {
+        folder.newFolder("day1");
+        folder.newFolder("day2");
+        file("day1/people.csv", 10);
+        file("day2/people.csv", 20);
+
+        Map<String, ExecutionContext> partitions = new MultiFilePartitioner(folder.getRoot().getPath() + "/*/people.csv").partition(1);
+
+        assertEquals(2, partitions.size());
+        assertTrue(partitions.containsKey("people.csv"));
+    }
+
+    @Test
+    public void createsNoPartitionsForAnEmptyDirectory() {
+        assertTrue(new MultiFilePartitioner(folder.getRoot().getPath()).partition(1).isEmpty());
+    }
+
+    @Test
+    public void submitsTheLargestFilesFirst() throws Exception {
+        List<String> started = new ArrayList<>();
+        Step step = mock(Step.class);
+        doAnswer(invocation -> started.add(invocation.<StepExecution>getArgument(0).getStepName())).when(step).execute(any());
+        LargestFirstPartitionHandler handler = new LargestFirstPartitionHandler();
+        handler.setStep(step);
+        handler.setTaskExecutor(new SyncTaskExecutor());
+
+        StepExecution master = MetaDataInstanceFactory.createStepExecution();
+        Set<StepExecution> partitions = new LinkedHashSet<>();
+        partitions.add(partition(master, "small", 10));
+        partitions.add(partition(master, "unknown", -1));
+        partitions.add(partition(master, "large", 100));
+        handler.doHandle(master, partitions);
+
+        assertEquals(Arrays.asList("large", "small", "unknown"), started);
+    }
+
+    private File file(String name, int size) throws IOException {
+        File file = new File(folder.getRoot(), name);
+        Files.write(file.toPath(), new byte[size]);
+        return file;
+    }
+
+    private static StepExecution partition(StepExecution master, String name, long fileSize) {
+        StepExecution stepExecution = master.getJobExecution().createStepExecution(name);
+        if (fileSize >= 0) {
+            stepExecution.getExecutionContext().putLong(MultiFilePartitioner.FILE_SIZE_KEY, fileSize);
+        }
+        return stepExecution;
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.demo.batch;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+
+public class PersonBulkItemWriterTests {
+
+    private final EmbeddedDatabase dataSource = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2)
+            .generateUniqueName(true).addScript("classpath:schema-all.sql").build();
+
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+    @After
+    public void shutdown() {
+        dataSource.shutdown();
+    }
+
+    @Test
+    public void multiRowWritesFullAndPartialGroups() throws Exception {
+        PersonBulkItemWriter writer = writer(PersonBulkItemWriter.Strategy.MULTI_ROW, 2);
+        List<Person> people = people(5);
+
+        // two full statements of two rows and one of the last row
+        writer.write(people);
+
+        assertEquals(names(people), stored());
+    }
+
+    @Test
+    public void multiRowWritesChunksSmallerThanAGroup() throws Exception {
+        PersonBulkItemWriter writer = writer(PersonBulkItemWriter.Strategy.MULTI_ROW, 500);
+        List<Person> people = people(3);
+
+        writer.write(people);
+
+        assertEquals(names(people), stored());
+    }
+
+    @Test
+    public void csvReadKeepsSpecialCharactersAndNulls() throws Exception {
+        PersonBulkItemWriter writer = writer(PersonBulkItemWriter.Strategy.CSVREAD, 500);
+        List<Person> people = Arrays.asList(
+                new Person("JOHN \"JJ\"", "DOE, JR"),
+                new Person("LINE\nFEED", "CR\r\nLF"),
+                new Person("CHER", null),
+                new Person("", "PRINCE"));
+
+        writer.write(people);
+
+        assertEquals(names(people), stored());
+    }
+
+    @Test
+    public void csvQuotesEveryFieldAndLeavesNullsEmpty() throws Exception {
+        StringWriter csv = new StringWriter();
+
+        PersonBulkItemWriter.writeCsv(Arrays.asList(
+                new Person("A \"B\"", "C,D"),
+                new Person("E\nF", null),
+                new Person("", "G")), csv);
+
+        assertEquals("\"A \"\"B\"\"\",\"C,D\"\n\"E\nF\",\n\"\",\"G\"\n", csv.toString());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void copyRequiresPostgreSql() throws Exception {
+        writer(PersonBulkItemWriter.Strategy.COPY, 500);
+    }
+
+    @Test
+    public void strategyNamesIgnoreTheDefaultLocale() {
+        Locale defaultLocale = Locale.getDefault();
+        Locale.setDefault(new Locale("tr", "TR"));
+        try {
+            assertEquals(PersonBulkItemWriter.Strategy.MULTI_ROW, PersonBulkItemWriter.Strategy.of(" multi-row "));
+            assertEquals(PersonBulkItemWriter.Strategy.CSVREAD, PersonBulkItemWriter.Strategy.of("csvread"));
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    private PersonBulkItemWriter writer(PersonBulkItemWriter.Strategy strategy, int rowsPerStatement) throws Exception {
+        PersonBulkItemWriter writer = new PersonBulkItemWriter(dataSource, strategy);
+        writer.setRowsPerStatement(rowsPerStatement);
+        writer.afterPropertiesSet();
+        return writer;
+    }
+
+    private List<List<String>> stored() {
+        return jdbcTemplate.query("SELECT first_name, last_name FROM people ORDER BY person_id",
+                (rs, rowNum) -> Arrays.asList(rs.getString(1), rs.getString(2)));
+    }
+
+    private static List<List<String>> names(List<Person> people) {
+        List<List<String>> names = new ArrayList<>(people.size());
+        for (Person person : people) {
+            names.add(Arrays.asList(person.getFirstName(), person.getLastName()));
+        }
+        return names;
+    }
+
+    private static List<Person> people(int count) {
+        List<Person> people = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            people.add(new Person("FIRST" + i, "LAST" + i));
+        }
+        return people;
+    }
+}
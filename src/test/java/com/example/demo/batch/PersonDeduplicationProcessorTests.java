@@ -0,0 +1,148 @@
+package com.example.demo.batch;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class PersonDeduplicationProcessorTests {
+
+    private EmbeddedDatabase dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private final JobExecution jobExecution = MetaDataInstanceFactory.createJobExecution(1L);
+
+    @Before
+    public void createTable() {
+        dataSource = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE people (first_name VARCHAR(20), last_name VARCHAR(20))");
+        jdbcTemplate.update("INSERT INTO people VALUES ('JILL', 'DOE')");
+    }
+
+    @After
+    public void dropDatabase() {
+        StepSynchronizationManager.close();
+        dataSource.shutdown();
+    }
+
+    @Test
+    public void filtersPeopleInTheTable() {
+        PersonDeduplicationProcessor processor = processor(16);
+        StepExecution step = step(processor, 1L);
+
+        assertNull(processor.process(new Person("JILL", "DOE")));
+        assertPassed(processor, new Person("JOE", "DOE"));
+        processor.afterStep(step);
+    }
+
+    @Test
+    public void filtersDuplicatesInTheSameChunk() {
+        PersonDeduplicationProcessor processor = processor(16);
+        step(processor, 1L);
+
+        assertPassed(processor, new Person("JOE", "DOE"));
+        assertNull(processor.process(new Person("JOE", "DOE")));
+    }
+
+    @Test
+    public void filtersDuplicatesOfCommittedChunks() {
+        PersonDeduplicationProcessor processor = processor(16);
+        StepExecution step = step(processor, 1L);
+
+        assertPassed(processor, new Person("JOE", "DOE"));
+        processor.afterChunk(chunk(step));
+        assertNull(processor.process(new Person("JOE", "DOE")));
+    }
+
+    @Test
+    public void keepsPeopleOfRolledBackChunks() {
+        PersonDeduplicationProcessor processor = processor(16);
+        StepExecution step = step(processor, 1L);
+
+        assertPassed(processor, new Person("JOE", "DOE"));
+        processor.afterChunkError(chunk(step));
+        assertPassed(processor, new Person("JOE", "DOE"));
+    }
+
+    @Test
+    public void keepsItemProcessedAgainInTheSameChunk() {
+        PersonDeduplicationProcessor processor = processor(16);
+        step(processor, 1L);
+        Person person = new Person("JOE", "DOE");
+
+        assertPassed(processor, person);
+        // a retry or the one by one fallback of ChunkItemProcessorAdapter
+        assertPassed(processor, person);
+    }
+
+    @Test
+    public void filtersPeopleInFlightInAnotherPartition() {
+        PersonDeduplicationProcessor processor = processor(16);
+        step(processor, 1L);
+        assertPassed(processor, new Person("JOE", "DOE"));
+
+        step(processor, 2L);
+        assertNull(processor.process(new Person("JOE", "DOE")));
+    }
+
+    @Test
+    public void queriesWhenTheSetOverflowed() {
+        jdbcTemplate.update("INSERT INTO people VALUES ('JUSTIN', 'DOE')");
+        PersonDeduplicationProcessor processor = processor(1);
+        StepExecution step = step(processor, 1L);
+
+        assertNull(processor.process(new Person("JUSTIN", "DOE")));
+        assertPassed(processor, new Person("JOE", "DOE"));
+        // not committed yet, so the query cannot see it, the people in flight can
+        assertNull(processor.process(new Person("JOE", "DOE")));
+        processor.afterChunk(chunk(step));
+        jdbcTemplate.update("INSERT INTO people VALUES ('JOE', 'DOE')");
+        assertNull(processor.process(new Person("JOE", "DOE")));
+    }
+
+    @Test
+    public void queriesPeopleWithoutAName() {
+        jdbcTemplate.update("INSERT INTO people VALUES ('CHER', NULL)");
+        jdbcTemplate.update("INSERT INTO people VALUES ('PRINCE', '')");
+        PersonDeduplicationProcessor processor = processor(1);
+        step(processor, 1L);
+
+        assertNull(processor.process(new Person("CHER", null)));
+        assertNull(processor.process(new Person("CHER", "")));
+        assertNull(processor.process(new Person("PRINCE", null)));
+    }
+
+    private PersonDeduplicationProcessor processor(int maxKeys) {
+        return new PersonDeduplicationProcessor(dataSource, maxKeys, 10, false);
+    }
+
+    private StepExecution step(PersonDeduplicationProcessor processor, long id) {
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution(jobExecution, "step" + id, id);
+        processor.beforeStep(stepExecution);
+        StepSynchronizationManager.close();
+        StepSynchronizationManager.register(stepExecution);
+        return stepExecution;
+    }
+
+    private static ChunkContext chunk(StepExecution stepExecution) {
+        return new ChunkContext(new StepContext(stepExecution));
+    }
+
+    private static void assertPassed(PersonDeduplicationProcessor processor, Person person) {
+        assertSame(person, processor.process(person));
+    }
+}
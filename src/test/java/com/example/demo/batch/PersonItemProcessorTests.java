@@ -0,0 +1,68 @@
+package com.example.demo.batch;
+
+import org.junit.Test;
+
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class PersonItemProcessorTests {
+
+    private final PersonItemProcessor processor = new PersonItemProcessor();
+
+    @Test
+    public void upperCasesLikeRootLocale() {
+        String[] names = {"", "jill", "Doe", "JOE", "o'brien-smith", "Mc Donald 3rd", "~`{|}@[\\]^_",
+                "홍길동", "straße", "ıi", "İstanbul", "ǆemal", "ﬀ", "Ångström", "doeé", "𐐨bc", "\uD801"};
+        for (String name : names) {
+            assertEquals(name, name.toUpperCase(Locale.ROOT), PersonItemProcessor.toUpperCase(name));
+        }
+    }
+
+    @Test
+    public void upperCasesEveryCharLikeRootLocale() {
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            String name = "ab" + (char) c + "cd";
+            assertEquals(Integer.toHexString(c), name.toUpperCase(Locale.ROOT), PersonItemProcessor.toUpperCase(name));
+        }
+    }
+
+    @Test
+    public void upperCasesRandomNamesLikeRootLocale() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            char[] chars = new char[random.nextInt(12)];
+            for (int j = 0; j < chars.length; j++) {
+                // mostly ASCII, now and then anything
+                chars[j] = random.nextInt(8) == 0 ? (char) random.nextInt(Character.MAX_VALUE + 1) : (char) random.nextInt(0x80);
+            }
+            String name = new String(chars);
+            assertEquals(name.toUpperCase(Locale.ROOT), PersonItemProcessor.toUpperCase(name));
+        }
+    }
+
+    @Test
+    public void returnsUpperCaseNamesAsIs() {
+        String name = "JOHNSON-42";
+        String korean = "홍길동";
+
+        assertSame(name, PersonItemProcessor.toUpperCase(name));
+        assertSame(korean, PersonItemProcessor.toUpperCase(korean));
+    }
+
+    @Test
+    public void transformsPersonInPlace() throws Exception {
+        Person person = new Person("Jill", "DOE");
+        String lastName = person.getLastName();
+
+        Person transformed = processor.process(person);
+
+        assertSame(person, transformed);
+        assertEquals("JILL", transformed.getFirstName());
+        assertSame(lastName, transformed.getLastName());
+        assertSame(transformed, processor.process(transformed));
+        assertEquals("JILL", transformed.getFirstName());
+    }
+}
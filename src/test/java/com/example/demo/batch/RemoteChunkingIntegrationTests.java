@@ -0,0 +1,58 @@
+package com.example.demo.batch;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.integration.chunk.ChunkHandler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static org.junit.Assert.assertEquals;
+
+/*
+    importUserJob with step1 as remote chunking manager and the local workers on the in-JVM transport
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:remote-chunking;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "batch.import.remote-chunking.enabled=true",
+        "batch.import.chunk.size=2"})
+public class RemoteChunkingIntegrationTests {
+
+    @Autowired
+    private JobLauncher jobLauncher;
+
+    @Autowired
+    @Qualifier("importUserJob")
+    private Job importUserJob;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // only exists with remote chunking, step1 sends its chunks to the workers
+    @Autowired
+    private ChunkHandler<Person> remoteChunkHandler;
+
+    @Test
+    public void workersProcessAndWriteEveryChunk() throws Exception {
+        JobExecution jobExecution = jobLauncher.run(importUserJob,
+                new JobParametersBuilder().addLong("run", System.currentTimeMillis()).toJobParameters());
+
+        assertEquals(BatchStatus.COMPLETED, jobExecution.getStatus());
+        StepExecution step1 = jobExecution.getStepExecutions().iterator().next();
+        assertEquals("step1", step1.getStepName());
+        assertEquals(5, step1.getReadCount());
+        assertEquals(5, step1.getWriteCount());
+        assertEquals(5, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM people", Integer.class).intValue());
+        // PersonItemProcessor ran on the workers
+        assertEquals(5, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM people WHERE last_name = 'DOE'", Integer.class).intValue());
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.demo.schedule2;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BatchJobDispatcherTests {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private final Map<String, AtomicInteger> running = new ConcurrentHashMap<>();
+
+    private final Map<String, AtomicInteger> maxRunning = new ConcurrentHashMap<>();
+
+    private final AtomicInteger launched = new AtomicInteger();
+
+    // blocks every launch until release is counted down
+    private final JobLauncher jobLauncher = (job, jobParameters) -> {
+        int now = running.computeIfAbsent(job.getName(), name -> new AtomicInteger()).incrementAndGet();
+        maxRunning.computeIfAbsent(job.getName(), name -> new AtomicInteger()).accumulateAndGet(now, Math::max);
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        running.get(job.getName()).decrementAndGet();
+        launched.incrementAndGet();
+        return MetaDataInstanceFactory.createJobExecution(job.getName(), 1L, 1L);
+    };
+
+    private final BatchJobDispatcher dispatcher =
+            new BatchJobDispatcher(jobLauncher, BatchJobDispatcherTests::job, new SimpleAsyncTaskExecutor(), registry);
+
+    @After
+    public void close() {
+        release.countDown();
+    }
+
+    @Test
+    public void rejectsLaunchesBeyondTheCapacity() throws Exception {
+        dispatcher.setCapacity(2);
+        dispatcher.setOfferTimeoutMillis(0);
+        dispatcher.afterPropertiesSet();
+
+        assertTrue(dispatcher.dispatch("job1", parameters(1), null));
+        assertTrue(dispatcher.dispatch("job1", parameters(2), null));
+        assertFalse(dispatcher.dispatch("job1", parameters(3), null));
+
+        assertEquals(1.0, registry.get("batch.launch.misfires").tags("job", "job1", "reason", "rejected").counter().count(), 0.0);
+    }
+
+    @Test
+    public void queuesLaunchesOfTheSameJobInItsLane() throws Exception {
+        dispatcher.setMaxConcurrentPerJob(1);
+        dispatcher.afterPropertiesSet();
+
+        dispatcher.dispatch("job1", parameters(1), null);
+        dispatcher.dispatch("job1", parameters(2), null);
+        dispatcher.dispatch("job2", parameters(1), null);
+        awaitRunning("job1", 1);
+        awaitRunning("job2", 1);
+
+        assertEquals(2.0, registry.get("batch.launch.active").gauge().value(), 0.0);
+        assertEquals(1.0, registry.get("batch.launch.pending").gauge().value(), 0.0);
+
+        release.countDown();
+        dispatcher.shutdown();
+
+        assertEquals(3, launched.get());
+        assertEquals(1, maxRunning.get("job1").get());
+    }
+
+    @Test
+    public void shutdownWaitsForDispatchedLaunchesAndRejectsNewOnes() throws Exception {
+        dispatcher.setMaxConcurrentPerJob(2);
+        dispatcher.afterPropertiesSet();
+        dispatcher.dispatch("job1", parameters(1), null);
+        dispatcher.dispatch("job1", parameters(2), null);
+        awaitRunning("job1", 2);
+
+        release.countDown();
+        dispatcher.shutdown();
+
+        assertEquals(2, launched.get());
+        assertFalse(dispatcher.dispatch("job1", parameters(3), null));
+    }
+
+    private void awaitRunning(String jobName, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (running.getOrDefault(jobName, new AtomicInteger()).get() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, running.get(jobName).get());
+    }
+
+    private static Job job(String name) {
+        Job job = mock(Job.class);
+        when(job.getName()).thenReturn(name);
+        return job;
+    }
+
+    private static JobParameters parameters(long run) {
+        return new JobParametersBuilder().addLong("run", run).toJobParameters();
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.demo.schedule2;
+
+import org.junit.Test;
+import org.quartz.JobDataMap;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.Trigger;
+import org.quartz.TriggerKey;
+import org.springframework.batch.core.JobParameter;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.quartz.JobBuilder.newJob;
+import static org.quartz.TriggerBuilder.newTrigger;
+
+public class JobParametersTemplatesTests {
+
+    private final JobParametersTemplates templates = new JobParametersTemplates();
+
+    @Test
+    public void triggerParametersOverrideJobParameters() throws Exception {
+        JobParameters config = new JobParametersBuilder().addString("region", "kr").addLong("limit", 10L).toJobParameters();
+        JobParameters trigger = new JobParametersBuilder().addLong("limit", 20L).toJobParameters();
+
+        JobParameters jobParameters = templates.getJobParameters(context("job1", "trigger1", config, trigger));
+
+        assertEquals("kr", jobParameters.getString("region"));
+        assertEquals(Long.valueOf(20L), jobParameters.getLong("limit"));
+        assertEquals("node1", jobParameters.getString("InstanceId"));
+        assertNotNull(jobParameters.getLong("timestamp"));
+    }
+
+    @Test
+    public void rebuildsWhenTheJobDataMapChanges() throws Exception {
+        JobParameters config = new JobParametersBuilder().addLong("limit", 10L).toJobParameters();
+        templates.getJobParameters(context("job1", "trigger1", config, null));
+
+        JobParameters changed = new JobParametersBuilder().addLong("limit", 30L).toJobParameters();
+        JobParameters jobParameters = templates.getJobParameters(context("job1", "trigger1", changed, null));
+
+        assertEquals(Long.valueOf(30L), jobParameters.getLong("limit"));
+        assertEquals(1, templates.size());
+    }
+
+    @Test
+    public void reusesTheTemplateForEqualParameters() throws Exception {
+        templates.getJobParameters(context("job1", "trigger1", new JobParametersBuilder().addLong("limit", 10L).toJobParameters(), null));
+        Map<String, JobParameter> template = templates.parameters(TriggerKey.triggerKey("trigger1"));
+
+        // a JDBC job store deserializes a new JobDataMap on every fire
+        templates.getJobParameters(context("job1", "trigger1", new JobParametersBuilder().addLong("limit", 10L).toJobParameters(), null));
+
+        assertSame(template, templates.parameters(TriggerKey.triggerKey("trigger1")));
+    }
+
+    @Test
+    public void evictsRemovedTriggersAndJobs() throws Exception {
+        JobParameters config = new JobParametersBuilder().addLong("limit", 10L).toJobParameters();
+        templates.getJobParameters(context("job1", "trigger1", config, null));
+        templates.getJobParameters(context("job1", "trigger2", config, null));
+        templates.getJobParameters(context("job2", "trigger3", config, null));
+        templates.getJobParameters(context("job2", "trigger4", config, null));
+        assertEquals(4, templates.size());
+
+        templates.jobUnscheduled(TriggerKey.triggerKey("trigger4"));
+        assertEquals(3, templates.size());
+
+        templates.triggerFinalized(newTrigger().withIdentity("trigger3").forJob("job2").build());
+        assertEquals(2, templates.size());
+
+        templates.jobDeleted(JobKey.jobKey("job1"));
+        assertEquals(0, templates.size());
+    }
+
+    @Test
+    public void clearsWhenTheSchedulerShutsDown() throws Exception {
+        templates.getJobParameters(context("job1", "trigger1", null, null));
+
+        templates.schedulerShutdown();
+
+        assertEquals(0, templates.size());
+    }
+
+    private static JobExecutionContext context(String jobName, String triggerName, JobParameters config, JobParameters trigger) throws Exception {
+        JobDataMap jobDataMap = new JobDataMap();
+        if (config != null) {
+            jobDataMap.put("jobParameters", config);
+        }
+        if (trigger != null) {
+            jobDataMap.put("triggerJobParameters", trigger);
+        }
+        Trigger quartzTrigger = newTrigger().withIdentity(triggerName).forJob(jobName).build();
+        Scheduler scheduler = mock(Scheduler.class);
+        when(scheduler.getSchedulerInstanceId()).thenReturn("node1");
+
+        JobExecutionContext context = mock(JobExecutionContext.class);
+        when(context.getMergedJobDataMap()).thenReturn(jobDataMap);
+        when(context.getTrigger()).thenReturn(quartzTrigger);
+        when(context.getJobDetail()).thenReturn(newJob(SpringBatchJobExecutor.class).withIdentity(jobName).build());
+        when(context.getScheduler()).thenReturn(scheduler);
+        return context;
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.demo.schedule2.guard;
+
+import org.junit.Test;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class InMemoryJobExecutionGuardTests {
+
+    private static final String JOB = "importUserJob";
+
+    private final InMemoryJobExecutionGuard guard = new InMemoryJobExecutionGuard();
+
+    @Test
+    public void skipDropsOverlappingTriggers() {
+        assertTrue(guard.tryStart(JOB, OverlapPolicy.SKIP, parameters(1)));
+        assertFalse(guard.tryStart(JOB, OverlapPolicy.SKIP, parameters(2)));
+
+        assertNull(guard.finish(JOB));
+        assertTrue(guard.tryStart(JOB, OverlapPolicy.SKIP, parameters(3)));
+    }
+
+    @Test
+    public void queueOneKeepsTheFirstTrigger() {
+        assertTrue(guard.tryStart(JOB, OverlapPolicy.QUEUE_ONE, parameters(1)));
+        assertFalse(guard.tryStart(JOB, OverlapPolicy.QUEUE_ONE, parameters(2)));
+        assertFalse(guard.tryStart(JOB, OverlapPolicy.QUEUE_ONE, parameters(3)));
+
+        assertEquals(parameters(2), guard.finish(JOB));
+        assertNull(guard.finish(JOB));
+    }
+
+    @Test
+    public void coalesceKeepsTheLastTrigger() {
+        assertTrue(guard.tryStart(JOB, OverlapPolicy.COALESCE, parameters(1)));
+        assertFalse(guard.tryStart(JOB, OverlapPolicy.COALESCE, parameters(2)));
+        assertFalse(guard.tryStart(JOB, OverlapPolicy.COALESCE, parameters(3)));
+
+        assertEquals(parameters(3), guard.finish(JOB));
+        assertNull(guard.finish(JOB));
+    }
+
+    @Test
+    public void jobsAreGuardedSeparately() {
+        assertTrue(guard.tryStart(JOB, OverlapPolicy.SKIP, parameters(1)));
+        assertTrue(guard.tryStart("metadataCleanupJob", OverlapPolicy.SKIP, parameters(1)));
+    }
+
+    @Test
+    public void runGuardedRunsThePendingTriggers() {
+        List<JobParameters> launched = new ArrayList<>();
+        assertTrue(guard.tryStart(JOB, OverlapPolicy.QUEUE_ONE, parameters(1)));
+
+        guard.runGuarded(JOB, parameters(1), jobParameters -> {
+            launched.add(jobParameters);
+            // a trigger fires during the first two runs
+            if (launched.size() < 3) {
+                guard.tryStart(JOB, OverlapPolicy.QUEUE_ONE, parameters(launched.size() + 1));
+            }
+        });
+
+        assertEquals(Arrays.asList(parameters(1), parameters(2), parameters(3)), launched);
+        assertTrue(guard.tryStart(JOB, OverlapPolicy.QUEUE_ONE, parameters(4)));
+    }
+
+    @Test
+    public void runGuardedAbandonsOnFailure() {
+        assertTrue(guard.tryStart(JOB, OverlapPolicy.QUEUE_ONE, parameters(1)));
+        assertFalse(guard.tryStart(JOB, OverlapPolicy.QUEUE_ONE, parameters(2)));
+
+        try {
+            guard.runGuarded(JOB, parameters(1), jobParameters -> {
+                throw new IllegalStateException("failed");
+            });
+            fail("the launch failure is rethrown");
+        } catch (IllegalStateException expected) {
+        }
+
+        assertTrue(guard.tryStart(JOB, OverlapPolicy.QUEUE_ONE, parameters(3)));
+        assertNull(guard.finish(JOB));
+    }
+
+    @Test
+    public void overlapPolicyAcceptsPropertyNames() {
+        assertEquals(Arrays.asList(OverlapPolicy.QUEUE_ONE, OverlapPolicy.COALESCE, OverlapPolicy.SKIP),
+                Arrays.asList(OverlapPolicy.of("queue-one"), OverlapPolicy.of(" coalesce "), OverlapPolicy.of("SKIP")));
+    }
+
+    private static JobParameters parameters(long run) {
+        return new JobParametersBuilder().addLong("run", run).toJobParameters();
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.demo.schedule2.guard;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class JdbcJobExecutionGuardTests {
+
+    private static final String JOB = "importUserJob";
+
+    private EmbeddedDatabase dataSource;
+
+    private JdbcJobExecutionGuard node1;
+
+    private JdbcJobExecutionGuard node2;
+
+    @Before
+    public void setUp() {
+        // the guard table comes with the Quartz schema, whatever profile is active
+        dataSource = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true)
+                .addScript("classpath:quartz/tables_h2.sql").build();
+        node1 = guard();
+        node2 = guard();
+    }
+
+    @After
+    public void tearDown() {
+        node1.destroy();
+        node2.destroy();
+        dataSource.shutdown();
+    }
+
+    @Test
+    public void onlyOneNodeRuns() {
+        assertTrue(node1.tryStart(JOB, OverlapPolicy.SKIP, parameters(1)));
+        assertFalse(node2.tryStart(JOB, OverlapPolicy.SKIP, parameters(2)));
+        assertFalse(node1.tryStart(JOB, OverlapPolicy.SKIP, parameters(3)));
+
+        assertNull(node1.finish(JOB));
+        assertTrue(node2.tryStart(JOB, OverlapPolicy.SKIP, parameters(4)));
+    }
+
+    @Test
+    public void queueOneKeepsTheFirstTrigger() {
+        assertTrue(node1.tryStart(JOB, OverlapPolicy.QUEUE_ONE, parameters(1)));
+        assertFalse(node2.tryStart(JOB, OverlapPolicy.QUEUE_ONE, parameters(2)));
+        assertFalse(node2.tryStart(JOB, OverlapPolicy.QUEUE_ONE, parameters(3)));
+
+        assertEquals(parameters(2), node1.finish(JOB));
+        assertNull(node1.finish(JOB));
+    }
+
+    @Test
+    public void coalesceKeepsTheLastTrigger() {
+        assertTrue(node1.tryStart(JOB, OverlapPolicy.COALESCE, parameters(1)));
+        assertFalse(node2.tryStart(JOB, OverlapPolicy.COALESCE, parameters(2)));
+        assertFalse(node2.tryStart(JOB, OverlapPolicy.COALESCE, parameters(3)));
+
+        assertEquals(parameters(3), node1.finish(JOB));
+        assertNull(node1.finish(JOB));
+        assertEquals(0, rows());
+    }
+
+    @Test
+    public void abandonDropsThePendingTrigger() {
+        assertTrue(node1.tryStart(JOB, OverlapPolicy.COALESCE, parameters(1)));
+        assertFalse(node2.tryStart(JOB, OverlapPolicy.COALESCE, parameters(2)));
+
+        node1.abandon(JOB);
+
+        assertEquals(0, rows());
+        assertTrue(node2.tryStart(JOB, OverlapPolicy.SKIP, parameters(3)));
+    }
+
+    @Test
+    public void takesOverAnExpiredGuard() {
+        assertTrue(node1.tryStart(JOB, OverlapPolicy.SKIP, parameters(1)));
+        new JdbcTemplate(dataSource).update("UPDATE BATCH_JOB_GUARD SET LOCKED_AT = LOCKED_AT - 60000");
+
+        assertTrue(node2.tryStart(JOB, OverlapPolicy.SKIP, parameters(2)));
+        // the node that lost it does not release the new owner's guard
+        assertNull(node1.finish(JOB));
+        assertEquals(1, rows());
+        assertNull(node2.finish(JOB));
+        assertEquals(0, rows());
+    }
+
+    @Test
+    public void guardsJobsSeparately() {
+        assertTrue(node1.tryStart(JOB, OverlapPolicy.SKIP, parameters(1)));
+        assertTrue(node2.tryStart("metadataCleanupJob", OverlapPolicy.SKIP, parameters(2)));
+    }
+
+    private JdbcJobExecutionGuard guard() {
+        JdbcJobExecutionGuard guard = new JdbcJobExecutionGuard(dataSource);
+        guard.setLeaseMillis(30000);
+        guard.afterPropertiesSet();
+        return guard;
+    }
+
+    private int rows() {
+        return new JdbcTemplate(dataSource).queryForObject("SELECT COUNT(*) FROM BATCH_JOB_GUARD", Integer.class);
+    }
+
+    private static JobParameters parameters(long run) {
+        return new JobParametersBuilder().addLong("run", run).toJobParameters();
+    }
+}